@@ -0,0 +1,79 @@
+// k6 scenario comparing platform and virtual threads, see "Virtual threads" section of README.
+// k6 run -e BASE_URL=http://localhost:8000 --summary-export=target/k6-platform.json load-test/catalog-and-downloads.js
+// Every VU logs in by the login form once and reuses its JSESSIONID cookie, so BCrypt runs once per VU
+// instead of once per request. CATEGORY_ID defaults to the category of the most downloaded application.
+import http from 'k6/http';
+import {check, fail} from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8000';
+const APPLICATION = __ENV.APPLICATION || 'Google Maps';
+const USER = __ENV.USER || 'user';
+const PASSWORD = __ENV.PASSWORD || 'password';
+
+export const options = {
+    scenarios: {
+        catalog: {
+            executor: 'constant-vus',
+            exec: 'browseCatalog',
+            vus: Number(__ENV.CATALOG_VUS || 200),
+            duration: __ENV.DURATION || '2m',
+        },
+        downloads: {
+            executor: 'constant-vus',
+            exec: 'downloadApplication',
+            vus: Number(__ENV.DOWNLOAD_VUS || 50),
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    thresholds: {
+        'http_req_failed{phase:load}': ['rate<0.01'],
+        'http_req_duration{scenario:catalog,phase:load}': ['p(99)<500'],
+    },
+};
+
+const LOAD = {tags: {phase: 'load'}};
+let loggedIn = false;
+
+function login() {
+    if (loggedIn) {
+        return;
+    }
+    // login redirects to the start page, the session cookie is kept in the cookie jar of the VU
+    const response = http.post(BASE_URL + '/login', {username: USER, password: PASSWORD},
+        {tags: {phase: 'login'}});
+    if (!check(response, {'login succeeded': r => r.status === 200 && !r.url.includes('/login')})) {
+        fail('login of ' + USER + ' failed with status ' + response.status);
+    }
+    loggedIn = true;
+}
+
+export function setup() {
+    if (__ENV.CATEGORY_ID) {
+        return {categoryId: __ENV.CATEGORY_ID};
+    }
+    login();
+    const items = http.get(BASE_URL + '/api/applications?size=1', {tags: {phase: 'setup'}}).json('items');
+    if (!items || items.length === 0) {
+        fail('catalog is empty, set CATEGORY_ID');
+    }
+    return {categoryId: String(items[0].category.id)};
+}
+
+export function browseCatalog(data) {
+    login();
+    const responses = http.batch([
+        ['GET', BASE_URL + '/', null, LOAD],
+        ['GET', BASE_URL + '/?categoryId=' + data.categoryId, null, LOAD],
+        ['GET', BASE_URL + '/api/applications?size=20', null, LOAD],
+        ['GET', BASE_URL + '/api/applications/suggest?q=ma', null, LOAD],
+    ]);
+    responses.forEach(response => check(response, {'catalog status is 200': r => r.status === 200}));
+}
+
+export function downloadApplication() {
+    login();
+    const response = http.get(BASE_URL + '/api/application/download/' + encodeURIComponent(APPLICATION),
+        Object.assign({responseType: 'none'}, LOAD));
+    check(response, {'download status is 200': r => r.status === 200});
+}
@@ -0,0 +1,40 @@
+package com.alexandervov.benchmark;
+
+import com.alexandervov.MobileSoftwareStoreApplication;
+import com.alexandervov.service.DbInitService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Starter of application context for benchmarks: embedded in-memory H2 seeded by {@link SyntheticDbInitService},
+ * random server port, blob store inside target directory and no periodic counter flushes.
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * Method for starting application context.
+     *
+     * @param applications quantity of synthetic applications
+     * @return started context, should be closed by benchmark tear down
+     */
+    public static ConfigurableApplicationContext start(final int applications) {
+        final var context = new SpringApplicationBuilder(MobileSoftwareStoreApplication.class)
+            .initializers(context -> ((GenericApplicationContext) context)
+                .registerBean("dbInitService", SyntheticDbInitService.class))
+            .run("--spring.profiles.active=embedded_database",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                "--spring.h2.console.enabled=false",
+                "--server.port=0",
+                "--logging.level.root=WARN",
+                "--store.blob-store.directory=target/benchmark-blobs",
+                "--store.download-counter.flush-interval=1h",
+                "--" + SyntheticDbInitService.APPLICATIONS_PROPERTY + "=" + applications);
+        // applications are seeded in background, measurements start on the seeded catalog
+        context.getBean(DbInitService.class).getSeeding().join();
+        return context;
+    }
+}
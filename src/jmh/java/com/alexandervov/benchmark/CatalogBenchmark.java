@@ -0,0 +1,75 @@
+package com.alexandervov.benchmark;
+
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.dao.ApplicationPage;
+import com.alexandervov.service.ApplicationService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of catalog reads over 1k to 100k synthetic applications:
+ * first catalog page, scrolling all applications into DAO page by page and popular applications block.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CatalogBenchmark {
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    @Param({"1000", "10000", "100000"})
+    private int applications;
+
+    private ConfigurableApplicationContext context;
+    private ApplicationService applicationService;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(applications);
+        applicationService = context.getBean(ApplicationService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ApplicationPage getFirstPage() {
+        return applicationService.getApplicationsPage(null, null, null);
+    }
+
+    @Benchmark
+    public int scrollAllApplications() {
+        int quantity = 0;
+        String cursor = null;
+        do {
+            final var page = applicationService.getApplicationsPage(null, cursor, MAX_PAGE_SIZE);
+            quantity += page.getItems().size();
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        return quantity;
+    }
+
+    @Benchmark
+    public List<ApplicationDao> getSortedTopApps() {
+        return applicationService.getSortedTopApps();
+    }
+}
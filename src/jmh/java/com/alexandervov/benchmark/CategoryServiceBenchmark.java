@@ -0,0 +1,68 @@
+package com.alexandervov.benchmark;
+
+import com.alexandervov.entity.Category;
+import com.alexandervov.repository.CategoryRepository;
+import com.alexandervov.service.CategoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link CategoryService} lookups by id and by name, measured with concurrent readers.
+ */
+@Fork(1)
+@Threads(4)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CategoryServiceBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CategoryService categoryService;
+    private List<Category> categories;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(100);
+        categoryService = context.getBean(CategoryService.class);
+        categories = new ArrayList<>();
+        context.getBean(CategoryRepository.class).findAll().forEach(categories::add);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Category getCategoryById() {
+        return categoryService.getCategory(categories.get(0).getId());
+    }
+
+    @Benchmark
+    public Category getCategoryByName() {
+        return categoryService.getCategory(categories.get(categories.size() - 1).getName());
+    }
+
+    @Benchmark
+    public Collection<Category> getAllCategories() {
+        return categoryService.getAllCategories();
+    }
+}
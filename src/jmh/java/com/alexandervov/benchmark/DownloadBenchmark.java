@@ -0,0 +1,106 @@
+package com.alexandervov.benchmark;
+
+import com.alexandervov.dao.ApplicationArchive;
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.dao.ApplicationRank;
+import com.alexandervov.repository.ApplicationRepository;
+import com.alexandervov.service.ApplicationService;
+import com.alexandervov.service.DownloadCounterBuffer;
+import com.alexandervov.service.PopularApplicationsLeaderboard;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded benchmark of the download hot path: registration of downloads spread over the catalog,
+ * downloads of one application counted by all threads in {@link DownloadCounterBuffer}
+ * and leaderboard counters incremented while the popular applications block is read.
+ * Buffered downloads are flushed to db in background after store.download-counter.max-lag downloads, as in production.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DownloadBenchmark {
+
+    private static final int DOWNLOADED_APPLICATIONS = 1000;
+
+    @Param({"1000", "100000"})
+    private int applications;
+
+    private ConfigurableApplicationContext context;
+    private ApplicationService applicationService;
+    private DownloadCounterBuffer downloadCounterBuffer;
+    private PopularApplicationsLeaderboard leaderboard;
+    private List<ApplicationArchive> archives;
+    private int hotApplicationId;
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(applications);
+        applicationService = context.getBean(ApplicationService.class);
+        downloadCounterBuffer = context.getBean(DownloadCounterBuffer.class);
+        leaderboard = context.getBean(PopularApplicationsLeaderboard.class);
+        final var applicationRepository = context.getBean(ApplicationRepository.class);
+        archives = applicationRepository.findAllProjectedBy().stream()
+            .limit(DOWNLOADED_APPLICATIONS)
+            .map(ApplicationRank::getName)
+            .map(name -> applicationRepository.findArchiveByName(name).orElseThrow())
+            .toList();
+        hotApplicationId = archives.get(0).getApplicationId();
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void registerDownload() {
+        applicationService.registerDownload(randomArchive(), 0);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void incrementHotApplication() {
+        downloadCounterBuffer.increment(hotApplicationId);
+    }
+
+    @Benchmark
+    @Group("leaderboard")
+    @GroupThreads(7)
+    public void recordDownload() {
+        leaderboard.recordDownload(randomArchive().getApplicationId());
+    }
+
+    @Benchmark
+    @Group("leaderboard")
+    @GroupThreads(1)
+    public List<ApplicationDao> getTop() {
+        return leaderboard.getTop();
+    }
+
+    private ApplicationArchive randomArchive() {
+        return archives.get(ThreadLocalRandom.current().nextInt(archives.size()));
+    }
+}
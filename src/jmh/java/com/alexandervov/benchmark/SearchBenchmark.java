@@ -0,0 +1,89 @@
+package com.alexandervov.benchmark;
+
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.service.ApplicationSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark of search index over 100k synthetic applications, sample mode reports latency percentiles,
+ * typeahead p99 is expected to stay under 5 ms. The indexing group measures queries of three threads
+ * while the fourth one keeps replacing indexed applications, as uploads do.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SearchBenchmark {
+
+    @Param({"100000"})
+    private int applications;
+
+    @Param({"s", "synth", "synthetic app 4217"})
+    private String query;
+
+    private ConfigurableApplicationContext context;
+    private ApplicationSearchIndex searchIndex;
+    private List<ApplicationDao> indexed;
+    private final AtomicInteger nextIndexed = new AtomicInteger();
+
+    @Setup
+    public void setUp() {
+        context = BenchmarkContext.start(applications);
+        searchIndex = context.getBean(ApplicationSearchIndex.class);
+        indexed = searchIndex.search("synthetic", 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<ApplicationDao> suggest() {
+        return searchIndex.suggest(query, 8);
+    }
+
+    @Benchmark
+    public List<ApplicationDao> search() {
+        return searchIndex.search(query, 20);
+    }
+
+    @Benchmark
+    public List<ApplicationDao> fuzzySearch() {
+        return searchIndex.search("synthetik aplication", 20);
+    }
+
+    @Benchmark
+    @Group("indexing")
+    @GroupThreads(3)
+    public List<ApplicationDao> suggestWhileIndexing() {
+        return searchIndex.suggest(query, 8);
+    }
+
+    @Benchmark
+    @Group("indexing")
+    @GroupThreads(1)
+    public void reindex() {
+        searchIndex.index(indexed.get(Math.floorMod(nextIndexed.getAndIncrement(), indexed.size())));
+    }
+}
@@ -0,0 +1,64 @@
+package com.alexandervov.benchmark;
+
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Generator of application archives with manifest, both pictures and requested quantity of resource entries.
+ */
+public final class SyntheticArchives {
+
+    public static final String PACKAGE_NAME = "com.alexandervov.synthetic";
+
+    private static final int RESOURCE_SIZE = 256;
+    private static final long SEED = 42;
+
+    private SyntheticArchives() {
+    }
+
+    /**
+     * Method for creating archive content.
+     *
+     * @param resourceEntries quantity of resource entries besides manifest and pictures
+     * @return zip archive bytes
+     * @throws IOException could be occurred during reading default pictures
+     */
+    public static byte[] create(final int resourceEntries) throws IOException {
+        final var random = new Random(SEED);
+        final var resource = new byte[RESOURCE_SIZE];
+        final var outputStream = new ByteArrayOutputStream();
+        try (ZipOutputStream zipOutputStream = new ZipOutputStream(outputStream)) {
+            putEntry(zipOutputStream, "manifest.txt", ("package: " + PACKAGE_NAME + "\n"
+                + "picture_128: icon_128.png\n"
+                + "picture_512: icon_512.png\n").getBytes(StandardCharsets.UTF_8));
+            putEntry(zipOutputStream, "icon_128.png", readResource("img/default_img_128.png"));
+            putEntry(zipOutputStream, "icon_512.png", readResource("img/default_img_512.png"));
+
+            for (int i = 0; i < resourceEntries; i++) {
+                random.nextBytes(resource);
+                putEntry(zipOutputStream, "res/raw/resource_" + i + ".bin", resource);
+            }
+        }
+        return outputStream.toByteArray();
+    }
+
+    private static void putEntry(final ZipOutputStream zipOutputStream, final String name,
+                                 final byte[] content) throws IOException {
+        zipOutputStream.putNextEntry(new ZipEntry(name));
+        zipOutputStream.write(content);
+        zipOutputStream.closeEntry();
+    }
+
+    private static byte[] readResource(final String path) throws IOException {
+        try (InputStream inputStream = new ClassPathResource(path).getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
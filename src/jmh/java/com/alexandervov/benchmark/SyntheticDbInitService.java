@@ -0,0 +1,77 @@
+package com.alexandervov.benchmark;
+
+import com.alexandervov.entity.Application;
+import com.alexandervov.entity.Category;
+import com.alexandervov.repository.ApplicationRepository;
+import com.alexandervov.repository.CategoryRepository;
+import com.alexandervov.service.BulkImportService;
+import com.alexandervov.service.DbInitService;
+import com.alexandervov.service.ZipFileService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.env.Environment;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Db initialization seeding store.benchmark.applications synthetic applications instead of demo ones.
+ * All applications share one ingested synthetic archive, so seeding time is dominated by batched inserts.
+ * Registered by {@link BenchmarkContext} under dbInitService name, replacing the scanned bean.
+ */
+@Slf4j
+public class SyntheticDbInitService extends DbInitService {
+
+    public static final String APPLICATIONS_PROPERTY = "store.benchmark.applications";
+
+    private static final int SAVE_CHUNK_SIZE = 1000;
+    private static final int MAX_DOWNLOAD_COUNTER = 1_000_000;
+    private static final long SEED = 42;
+
+    private final int applicationsQuantity;
+
+    public SyntheticDbInitService(final CategoryRepository categoryRepository,
+                                  final ApplicationRepository applicationRepository,
+                                  final ZipFileService zipFileService,
+                                  final BulkImportService bulkImportService,
+                                  final Environment environment) {
+        super(categoryRepository, applicationRepository, zipFileService, bulkImportService);
+        this.applicationsQuantity = environment.getProperty(APPLICATIONS_PROPERTY, Integer.class, 1000);
+    }
+
+    @Override
+    protected void initApplications() throws IOException {
+        final var template = zipFileService.initApplicationFromZip(
+            new ByteArrayInputStream(SyntheticArchives.create(10)), new Application());
+        final List<Category> categories = new ArrayList<>();
+        categoryRepository.findAll().forEach(categories::add);
+        final var random = new Random(SEED);
+
+        final List<Application> applications = new ArrayList<>(SAVE_CHUNK_SIZE);
+        for (int i = 0; i < applicationsQuantity; i++) {
+            applications.add(new Application.Builder()
+                .name("Synthetic App " + i)
+                .category(categories.get(i % categories.size()))
+                .description("Synthetic application number " + i)
+                .packageName(template.getPackageName())
+                .pictureName128(template.getPictureName128())
+                .pictureName512(template.getPictureName512())
+                .picture128Hash(template.getPicture128Hash())
+                .picture512Hash(template.getPicture512Hash())
+                .packageHash(template.getPackageHash())
+                .packageSize(template.getPackageSize())
+                .downloadCounter(random.nextInt(MAX_DOWNLOAD_COUNTER))
+                .build());
+
+            if (applications.size() == SAVE_CHUNK_SIZE) {
+                applicationRepository.saveAll(applications);
+                applications.clear();
+            }
+        }
+
+        applicationRepository.saveAll(applications);
+        log.info("{} synthetic applications are seeded", applicationsQuantity);
+    }
+}
@@ -0,0 +1,58 @@
+package com.alexandervov.benchmark;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.entity.Application;
+import com.alexandervov.service.ImageProcessor;
+import com.alexandervov.service.ZipFileService;
+import com.alexandervov.storage.FileSystemBlobStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of {@link ZipFileService#initApplicationFromZip} over synthetic archives with different entries quantity.
+ * Blob store is the filesystem one, so package hashing and writing are included.
+ */
+@Fork(1)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ZipIngestBenchmark {
+
+    @Param({"10", "1000", "10000", "100000"})
+    private int entries;
+
+    private byte[] archive;
+    private ZipFileService zipFileService;
+
+    @Setup
+    public void setUp() throws IOException {
+        final var storeProperties = new StoreProperties();
+        storeProperties.getBlobStore().setDirectory(Path.of("target", "benchmark-blobs"));
+        zipFileService = new ZipFileService(new FileSystemBlobStore(storeProperties), storeProperties,
+            new ImageProcessor(storeProperties), new SimpleMeterRegistry());
+        zipFileService.init();
+        archive = SyntheticArchives.create(entries);
+    }
+
+    @Benchmark
+    public Application initApplicationFromZip() throws IOException {
+        return zipFileService.initApplicationFromZip(new ByteArrayInputStream(archive), new Application());
+    }
+}
@@ -0,0 +1,9 @@
+/**
+ * This package contains JMH benchmarks of catalog, ingest and download hot paths
+ * together with synthetic data generators. Benchmarks are built and run by benchmark maven profile.
+ *
+ * @author Alexander Voyuev
+ * @version 1.0
+ */
+
+package com.alexandervov.benchmark;
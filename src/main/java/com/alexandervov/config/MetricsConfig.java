@@ -0,0 +1,20 @@
+package com.alexandervov.config;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Aspect recording timers of methods annotated by {@link io.micrometer.core.annotation.Timed}.
+     * @param meterRegistry registry of timers
+     * @return aspect
+     */
+    @Bean
+    public TimedAspect timedAspect(final MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+}
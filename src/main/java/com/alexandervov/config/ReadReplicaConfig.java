@@ -0,0 +1,103 @@
+package com.alexandervov.config;
+
+import com.alexandervov.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.flyway.FlywayDataSource;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DataSources of primary and read replicas, active when store.read-replicas.enabled is true.
+ * Primary is configured by spring.datasource properties and migrated by Flyway,
+ * replicas are expected to receive schema and data by replication.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "store.read-replicas", name = "enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    private static final long MIN_CONNECTION_TIMEOUT_MILLIS = 250;
+
+    /**
+     * @param dataSourceProperties spring.datasource properties
+     * @return pool of primary
+     */
+    @Bean
+    @FlywayDataSource
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(final DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * @param primaryDataSource    pool of primary
+     * @param dataSourceProperties spring.datasource properties shared by replicas
+     * @param storeProperties      replicas configuration
+     * @param taskScheduler        scheduler of replica checks
+     * @return DataSource routing read-only transactions
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+        @Qualifier("primaryDataSource") final HikariDataSource primaryDataSource,
+        final DataSourceProperties dataSourceProperties, final StoreProperties storeProperties,
+        final TaskScheduler taskScheduler) {
+        final var readReplicas = storeProperties.getReadReplicas();
+        final List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < readReplicas.getUrls().size(); i++) {
+            final var replica = dataSourceProperties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(readReplicas.getUrls().get(i))
+                .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(readReplicas.getMaxPoolSize());
+            // unavailable replica mustn't hold requests longer than a check interval
+            replica.setConnectionTimeout(Math.max(MIN_CONNECTION_TIMEOUT_MILLIS,
+                Math.min(primaryDataSource.getConnectionTimeout(), readReplicas.getCheckInterval().toMillis())));
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, readReplicas, taskScheduler);
+    }
+
+    /**
+     * DataSource used by JPA, JdbcTemplate and transaction managers. Connection is obtained on the first statement,
+     * when read-only flag of transaction is already known.
+     *
+     * @param replicaRoutingDataSource DataSource routing read-only transactions
+     * @return lazy DataSource
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(final ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Replicas never make the store unavailable, reads fall back to primary, so the indicator is always up.
+     *
+     * @param replicaRoutingDataSource DataSource routing read-only transactions
+     * @return health of replicas
+     */
+    @Bean
+    public HealthIndicator readReplicasHealthIndicator(final ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return () -> {
+            final var states = replicaRoutingDataSource.getReplicaStates();
+            final var health = Health.up().withDetail("fallbackToPrimary",
+                states.stream().noneMatch(ReplicaRoutingDataSource.ReplicaState::healthy));
+            states.forEach(state -> health.withDetail(state.name(), state));
+            return health.build();
+        };
+    }
+}
@@ -2,6 +2,7 @@ package com.alexandervov.config;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
@@ -39,8 +40,12 @@ public class SecurityConfig {
         requestCache.setMatchingRequestParameterName(null);
         return http
             .authorizeHttpRequests(authorize -> authorize
+                .requestMatchers("/actuator/health")
+                .permitAll()
                 .requestMatchers("/application-upload/**")
                 .hasAuthority(ROLE_DEVELOPER.getAuthority())
+                .requestMatchers(HttpMethod.POST, "/api/uploads/**")
+                .hasAuthority(ROLE_DEVELOPER.getAuthority())
                 .anyRequest().authenticated()
             )
             .formLogin(formLogin -> formLogin
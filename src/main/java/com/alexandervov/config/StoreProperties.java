@@ -0,0 +1,286 @@
+package com.alexandervov.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@ConfigurationProperties(prefix = "store")
+public class StoreProperties {
+
+    /**
+     * Quantity of applications shown in the popular applications block.
+     */
+    private int popularAppsLimit = 5;
+
+    /**
+     * Interval between rebuilds of the popular applications block, it is rebuilt only if downloads could change it.
+     */
+    private Duration popularAppsRefreshInterval = Duration.ofSeconds(1);
+
+    private final DownloadCounter downloadCounter = new DownloadCounter();
+
+    private final BlobStore blobStore = new BlobStore();
+
+    private final Upload upload = new Upload();
+
+    private final Catalog catalog = new Catalog();
+
+    private final Search search = new Search();
+
+    private final FragmentCache fragmentCache = new FragmentCache();
+
+    private final Metrics metrics = new Metrics();
+
+    private final BulkImport bulkImport = new BulkImport();
+
+    private final DetailsCache detailsCache = new DetailsCache();
+
+    private final ReadReplicas readReplicas = new ReadReplicas();
+
+    private final Analytics analytics = new Analytics();
+
+    @Data
+    public static class DownloadCounter {
+
+        /**
+         * Interval between flushes of buffered download counters to db.
+         */
+        private Duration flushInterval = Duration.ofSeconds(5);
+
+        /**
+         * Quantity of buffered downloads which triggers flush before the interval is elapsed.
+         */
+        private long maxLag = 1000;
+
+        /**
+         * Interval between compactions of download events of all nodes into download counters.
+         */
+        private Duration compactionInterval = Duration.ofSeconds(30);
+
+        /**
+         * Quantity of download events compacted in one transaction.
+         */
+        private int compactionBatchSize = 10_000;
+    }
+
+    @Data
+    public static class BlobStore {
+
+        /**
+         * Storage of application packages and pictures.
+         */
+        private Type type = Type.FILESYSTEM;
+
+        /**
+         * Root directory of filesystem blob store.
+         */
+        private Path directory = Path.of("data", "blobs");
+
+        public enum Type {
+            FILESYSTEM,
+            DATABASE
+        }
+    }
+
+    @Data
+    public static class Upload {
+
+        /**
+         * Max size of application picture inside uploaded archive.
+         */
+        private DataSize maxPictureSize = DataSize.ofMegabytes(2);
+
+        /**
+         * Max quantity of pixels of uploaded picture, checked before decoding.
+         */
+        private long maxPicturePixels = 16_777_216;
+
+        /**
+         * Charset of application manifest used when manifest doesn't start with BOM.
+         */
+        private Charset manifestCharset = StandardCharsets.UTF_8;
+
+        /**
+         * Directory keeping accepted archives until their upload jobs are processed.
+         */
+        private Path stagingDirectory = Path.of("data", "staging");
+
+        /**
+         * Quantity of upload jobs processed concurrently.
+         */
+        private int concurrency = 2;
+
+        /**
+         * Name of this node stored in upload jobs, staging files are kept by the node which has accepted them.
+         * Should be stable across restarts, host name is used by default.
+         */
+        private String node;
+    }
+
+    @Data
+    public static class Catalog {
+
+        /**
+         * Quantity of applications in a catalog page when client doesn't request it.
+         */
+        private int pageSize = 20;
+
+        /**
+         * Max quantity of applications in a catalog page.
+         */
+        private int maxPageSize = 100;
+    }
+
+    @Data
+    public static class Search {
+
+        /**
+         * Weight of logarithm of download counter blended into text relevance.
+         */
+        private double popularityWeight = 0.1;
+
+        /**
+         * Max quantity of search results.
+         */
+        private int maxResults = 20;
+
+        /**
+         * Max quantity of typeahead suggestions.
+         */
+        private int maxSuggestions = 8;
+    }
+
+    @Data
+    public static class FragmentCache {
+
+        /**
+         * Max quantity of cached rendered page fragments.
+         */
+        private int maxEntries = 1000;
+
+        /**
+         * Time to live of cached rendered page fragment.
+         */
+        private Duration ttl = Duration.ofMinutes(10);
+    }
+
+    @Data
+    public static class Metrics {
+
+        /**
+         * Quantity of SQL statements per request above which the request is logged, 0 disables logging.
+         */
+        private int requestQueriesThreshold = 20;
+    }
+
+    @Data
+    public static class BulkImport {
+
+        /**
+         * Directory of zip archives or tab separated manifest of archives imported on startup, not set by default.
+         */
+        private Path source;
+
+        /**
+         * Category of archives imported from directory.
+         */
+        private String defaultCategory = "Tools";
+
+        /**
+         * Quantity of archives parsed in parallel.
+         */
+        private int parallelism = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Quantity of applications inserted in one transaction.
+         */
+        private int batchSize = 500;
+    }
+
+    @Data
+    public static class DetailsCache {
+
+        /**
+         * Max estimated size of cached application details.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(16);
+
+        /**
+         * Max size of cached application pictures.
+         */
+        private DataSize maxIconsSize = DataSize.ofMegabytes(64);
+
+        /**
+         * Keep cached pictures by soft references, so they are released under memory pressure.
+         */
+        private boolean softIcons = false;
+    }
+
+    @Data
+    public static class ReadReplicas {
+
+        /**
+         * Route read-only transactions to replicas, primary is used for everything when disabled.
+         */
+        private boolean enabled = false;
+
+        /**
+         * JDBC urls of replicas, driver, username and password of primary datasource are used.
+         */
+        private List<String> urls = new ArrayList<>();
+
+        /**
+         * Max size of connection pool of every replica.
+         */
+        private int maxPoolSize = 10;
+
+        /**
+         * Interval between health and lag checks of replicas.
+         */
+        private Duration checkInterval = Duration.ofSeconds(5);
+
+        /**
+         * Max replication lag, reads go to other replicas or primary when it is exceeded.
+         */
+        private Duration maxLag = Duration.ofSeconds(10);
+
+        /**
+         * Query returning replication lag in seconds, default works for PostgreSQL streaming replicas.
+         */
+        private String lagQuery = "SELECT CASE WHEN NOT pg_is_in_recovery() "
+            + "OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) END";
+    }
+
+    @Data
+    public static class Analytics {
+
+        /**
+         * Max quantity of distinct applications counted in memory, rounded up to a power of two.
+         */
+        private int capacity = 65_536;
+
+        /**
+         * Time hourly download rollups are kept for, longer windows are served from daily rollups.
+         */
+        private Duration hourlyRetention = Duration.ofDays(14);
+
+        /**
+         * Trending window when client doesn't request it.
+         */
+        private Duration trendingWindow = Duration.ofDays(7);
+
+        /**
+         * Quantity of trending applications when client doesn't request it.
+         */
+        private int trendingLimit = 10;
+    }
+}
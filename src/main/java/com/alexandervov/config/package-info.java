@@ -1,5 +1,5 @@
 /**
- * This package contains security configuration class.
+ * This package contains security configuration and store properties classes.
  *
  * @author Alexander Voyuev
  * @version 1.0
@@ -1,32 +1,226 @@
 package com.alexandervov.controller;
 
+import com.alexandervov.dao.ApplicationArchive;
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.dao.ApplicationPage;
+import com.alexandervov.dao.TrendingApplication;
+import com.alexandervov.metrics.DownloadMetrics;
 import com.alexandervov.service.ApplicationService;
+import com.alexandervov.service.DownloadAnalyticsService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AllArgsConstructor;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.util.List;
 
 @RestController
 @AllArgsConstructor
 @RequestMapping("/api")
 public class ApplicationController {
 
+    private static final String APPLICATION_ZIP_VALUE = "application/zip";
+    private static final String APPLICATION_VERSION_HEADER = "X-Application-Version";
+    private static final String SENDFILE_SUPPORT_ATTRIBUTE = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTRIBUTE = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTRIBUTE = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTRIBUTE = "org.apache.tomcat.sendfile.end";
+
     private final ApplicationService applicationService;
+    private final DownloadMetrics downloadMetrics;
+    private final DownloadAnalyticsService downloadAnalyticsService;
+
+    /**
+     * Method for getting catalog page, clients scroll it by passing nextCursor of previous page.
+     *
+     * @param categoryId optional category of applications
+     * @param cursor     optional cursor of requested page
+     * @param size       optional quantity of applications
+     * @return page of lightweight application listings
+     */
+    @GetMapping("/applications")
+    public ApplicationPage getApplications(@RequestParam(required = false) final Integer categoryId,
+                                           @RequestParam(required = false) final String cursor,
+                                           @RequestParam(required = false) final Integer size) {
+        try {
+            return applicationService.getApplicationsPage(categoryId, cursor, size);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Method for full text search of applications.
+     *
+     * @param query searched text
+     * @return applications ordered by relevance
+     */
+    @GetMapping("/applications/search")
+    public List<ApplicationDao> searchApplications(@RequestParam("q") final String query) {
+        return applicationService.searchApplications(query);
+    }
+
+    /**
+     * Method for typeahead of application names.
+     *
+     * @param query typed text
+     * @return applications ordered by relevance
+     */
+    @GetMapping("/applications/suggest")
+    public List<ApplicationDao> suggestApplications(@RequestParam("q") final String query) {
+        return applicationService.suggestApplications(query);
+    }
+
+    /**
+     * Method for getting the most downloaded applications of a recent window.
+     *
+     * @param window optional window ending now, e.g. 90m, 24h, 7d or ISO-8601 duration
+     * @param limit  optional quantity of applications
+     * @return applications with their downloads in the window
+     */
+    @GetMapping("/applications/trending")
+    public List<TrendingApplication> getTrendingApplications(@RequestParam(required = false) final String window,
+                                                             @RequestParam(required = false) final Integer limit) {
+        try {
+            return downloadAnalyticsService.getTrending(window == null ? null : DurationStyle.detectAndParse(window),
+                limit);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
 
     /**
      * Method for download application.
+     * Package is streamed from blob store, files of filesystem store are sent by Tomcat sendfile
+     * when connector supports it. Single byte range requests are supported for resuming downloads.
+     * Version of the package is returned in {@value #APPLICATION_VERSION_HEADER} header, strong ETag is the package
+     * hash. Range is served only when If-Range matches the ETag, so a download resumed after a new version is
+     * uploaded gets the whole new package instead of its bytes appended to the old one.
      *
-     * @param name application name
-     * @return zipped application
+     * @param name     application name
+     * @param range    optional Range header value
+     * @param request  http request
+     * @param response zipped application
+     * @throws IOException could be occurred during writing response
      */
     @GetMapping("/application/download/{name}")
-    public ResponseEntity<?> getApplicationArchive(@PathVariable final String name) {
-        return ResponseEntity.status(HttpStatus.OK)
-            .contentType(new MediaType("application", "zip"))
-            .body(applicationService.downloadApplication(name).getPackageContent());
+    public void getApplicationArchive(@PathVariable final String name,
+                                      @RequestHeader(value = HttpHeaders.RANGE, required = false) final String range,
+                                      final HttpServletRequest request,
+                                      final HttpServletResponse response) throws IOException {
+        sendArchive(applicationService.getApplicationArchive(name), range, true, request, response);
+    }
+
+    /**
+     * Method for download delta from installed version of application to the next version.
+     * Delta is a zip with manifest of entries kept from installed package and changed entries,
+     * clients more than one version behind apply deltas one by one.
+     * Not found status means delta isn't available and the whole package should be downloaded.
+     *
+     * @param name        application name
+     * @param fromVersion version installed by client
+     * @param range       optional Range header value
+     * @param request     http request
+     * @param response    zipped delta
+     * @throws IOException could be occurred during writing response
+     */
+    @GetMapping("/application/download/{name}/delta/{fromVersion}")
+    public void getApplicationDelta(@PathVariable final String name,
+                                    @PathVariable final int fromVersion,
+                                    @RequestHeader(value = HttpHeaders.RANGE, required = false) final String range,
+                                    final HttpServletRequest request,
+                                    final HttpServletResponse response) throws IOException {
+        final var delta = applicationService.getApplicationDelta(name, fromVersion).orElseThrow(() ->
+            new ResponseStatusException(HttpStatus.NOT_FOUND,
+                "Delta from version " + fromVersion + " isn't available"));
+        sendArchive(delta, range, false, request, response);
+    }
+
+    private void sendArchive(final ApplicationArchive archive, final String range, final boolean countDownload,
+                             final HttpServletRequest request,
+                             final HttpServletResponse response) throws IOException {
+        final long size = archive.getContentSize();
+        final var eTag = "\"" + archive.getPackageHash() + "\"";
+        long start = 0;
+        long end = size - 1;
+
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.ETAG, eTag);
+        response.setHeader(APPLICATION_VERSION_HEADER, String.valueOf(archive.getVersion()));
+        final var ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        if (ifMatch != null && !matchesStrongly(ifMatch, eTag)) {
+            response.setStatus(HttpStatus.PRECONDITION_FAILED.value());
+            return;
+        }
+
+        final var ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        // If-Range with a date or another ETag means the client's bytes belong to another package
+        if (range != null && (ifRange == null || ifRange.trim().equals(eTag))) {
+            try {
+                final List<HttpRange> ranges = HttpRange.parseRanges(range);
+                if (ranges.size() == 1) {
+                    start = ranges.get(0).getRangeStart(size);
+                    end = ranges.get(0).getRangeEnd(size);
+                }
+            } catch (IllegalArgumentException e) {
+                start = size;
+            }
+
+            if (start >= size || start > end) {
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                return;
+            }
+        }
+
+        final long length = end - start + 1;
+        if (length < size) {
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        } else {
+            response.setStatus(HttpStatus.OK.value());
+        }
+        response.setContentType(APPLICATION_ZIP_VALUE);
+        response.setContentLengthLong(Math.max(length, 0));
+
+        final var archiveFile = applicationService.getApplicationArchiveFile(archive);
+        if (archiveFile.isPresent() && length > 0
+            && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTRIBUTE))) {
+            request.setAttribute(SENDFILE_FILENAME_ATTRIBUTE, archiveFile.get().toString());
+            request.setAttribute(SENDFILE_START_ATTRIBUTE, start);
+            request.setAttribute(SENDFILE_END_ATTRIBUTE, end + 1);
+            downloadMetrics.recordSendfile(countDownload ? DownloadMetrics.PACKAGE : DownloadMetrics.DELTA, length);
+            if (countDownload) {
+                applicationService.registerDownload(archive, start);
+            }
+        } else if (countDownload) {
+            applicationService.downloadApplication(archive, start, length, response.getOutputStream());
+        } else {
+            applicationService.downloadDelta(archive, start, length, response.getOutputStream());
+        }
+    }
+
+    /**
+     * Strong comparison of If-Match header with ETag, weak ETags of the header never match.
+     */
+    private static boolean matchesStrongly(final String header, final String eTag) {
+        for (String candidate : header.split(",")) {
+            final var value = candidate.trim();
+            if (value.equals("*") || value.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
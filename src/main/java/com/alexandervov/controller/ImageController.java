@@ -0,0 +1,69 @@
+package com.alexandervov.controller;
+
+import com.alexandervov.service.IconService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URLConnection;
+import java.time.Duration;
+import java.util.Objects;
+
+@RestController
+@AllArgsConstructor
+public class ImageController {
+
+    private static final CacheControl IMMUTABLE_CACHE_CONTROL = CacheControl.maxAge(Duration.ofDays(365))
+        .cachePrivate()
+        .immutable();
+
+    private final IconService iconService;
+
+    /**
+     * Method for getting application picture as binary image.
+     * ETag is the picture content hash, so conditional requests are answered by 304 without reading picture.
+     *
+     * @param appId      application id
+     * @param size       picture size, 128 or 512
+     * @param webRequest used for checking conditional request
+     * @return picture bytes
+     * @throws IOException could be occurred during reading picture
+     */
+    @GetMapping("/img/{appId}/{size}")
+    public ResponseEntity<byte[]> getApplicationImage(@PathVariable final int appId,
+                                                      @PathVariable final int size,
+                                                      final WebRequest webRequest) throws IOException {
+        final var hash = iconService.getIconHash(appId, size)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+        final var eTag = "\"" + hash + "\"";
+
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(eTag)
+                .cacheControl(IMMUTABLE_CACHE_CONTROL)
+                .build();
+        }
+
+        final var image = iconService.readIcon(hash);
+        return ResponseEntity.ok()
+            .eTag(eTag)
+            .cacheControl(IMMUTABLE_CACHE_CONTROL)
+            .contentType(detectMediaType(image))
+            .contentLength(image.length)
+            .body(image);
+    }
+
+    private MediaType detectMediaType(final byte[] image) throws IOException {
+        final var contentType = URLConnection.guessContentTypeFromStream(new ByteArrayInputStream(image));
+        return Objects.isNull(contentType) ? MediaType.IMAGE_PNG : MediaType.parseMediaType(contentType);
+    }
+}
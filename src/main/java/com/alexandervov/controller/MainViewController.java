@@ -2,9 +2,13 @@ package com.alexandervov.controller;
 
 import com.alexandervov.service.ApplicationService;
 import com.alexandervov.service.CategoryService;
+import com.alexandervov.service.UploadJobService;
 import com.alexandervov.service.UserService;
+import com.alexandervov.view.CatalogFragments;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
@@ -13,6 +17,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
@@ -25,62 +30,89 @@ import static com.alexandervov.service.Constants.APP_NAME_DUPLICATION_ERROR_MESS
 @AllArgsConstructor
 public class MainViewController {
 
+    private static final CacheControl PAGE_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final ApplicationService applicationService;
     private final CategoryService categoryService;
     private final UserService userService;
+    private final CatalogFragments catalogFragments;
+    private final UploadJobService uploadJobService;
 
     /**
+     * Catalog parts of the page are cached rendered fragments, only user header is rendered per request.
+     * Page carries weak ETag, so conditional requests are answered by 304 while catalog isn't changed.
+     *
      * @param modelMap   value for mapping values on page
      * @param categoryId getting list of applications by selected category
-     * @return index page
+     * @param cursor     page of applications list, first page if absent
+     * @param query      text of applications search
+     * @param uploadJob  id of upload job whose status is shown
+     * @param webRequest current request
+     * @return index page or null if page isn't modified
      */
     @RequestMapping("/")
     public String getMain(final ModelMap modelMap,
-                          @RequestParam(value = "categoryId", required = false) final Integer categoryId) {
-        initModelMapByMainValues(modelMap);
-        modelMap.put("categories",
-            applicationService.getCategoriesByExistingApplications());
+                          @RequestParam(value = "categoryId", required = false) final Integer categoryId,
+                          @RequestParam(value = "cursor", required = false) final String cursor,
+                          @RequestParam(value = "query", required = false) final String query,
+                          @RequestParam(value = "uploadJob", required = false) final String uploadJob,
+                          final ServletWebRequest webRequest) {
+        initModelMapByMainValues(modelMap, webRequest);
+        if (!Objects.isNull(uploadJob)) {
+            modelMap.put("uploadJob", uploadJob);
+        }
+        modelMap.put("categoriesFragment", catalogFragments.getCategories(webRequest));
+
+        if (!Objects.isNull(query) && !query.isBlank()) {
+            modelMap.put("query", query);
+            modelMap.put("appsByCategory", applicationService.searchApplications(query));
+            return "index";
+        }
 
         if (!Objects.isNull(categoryId)) {
-            modelMap.put("appsByCategory",
-                applicationService.getApplicationByCategory(categoryId));
+            modelMap.put("listingFragment", catalogFragments.getCategoryPage(webRequest, categoryId, cursor));
         }
 
-        return "index";
+        return isNotModified(webRequest, "index", modelMap) ? null : "index";
     }
 
     /**
-     * @param modelMap value for mapping values on page
-     * @param id       used for getting application info
-     * @return index application-details page
+     * @param modelMap   value for mapping values on page
+     * @param id         used for getting application info
+     * @param webRequest current request
+     * @return index application-details page or null if page isn't modified
      */
     @RequestMapping("/application/{id}")
     public String applicationDetails(final ModelMap modelMap,
-                                     @PathVariable final int id) {
-        initModelMapByMainValues(modelMap);
-        modelMap.put("app", applicationService.getApplicationDaoById(id));
-        return "application-details";
+                                     @PathVariable final int id,
+                                     final ServletWebRequest webRequest) {
+        initModelMapByMainValues(modelMap, webRequest);
+        modelMap.put("detailsFragment", catalogFragments.getDetails(webRequest, id));
+        return isNotModified(webRequest, "application-details", modelMap) ? null : "application-details";
     }
 
     /**
-     * @param modelMap value for mapping values on page
+     * @param modelMap   value for mapping values on page
+     * @param webRequest current request
      * @return index application-upload page
      */
     @RequestMapping("/application-upload")
-    public String uploadApplication(final ModelMap modelMap) {
-        initModelMapByMainValues(modelMap);
+    public String uploadApplication(final ModelMap modelMap, final ServletWebRequest webRequest) {
+        initModelMapByMainValues(modelMap, webRequest);
         modelMap.put("categories", categoryService.getAllCategories());
         return "application-upload";
     }
 
     /**
      * Method for upload application.
+     * Archive is processed asynchronously, page is redirected to main page showing upload job status.
      *
      * @param name        of uploaded application
      * @param categoryId  of uploaded application
      * @param description of uploaded application
      * @param file        archive with apps txt and images
      * @param modelMap    value for mapping values on page
+     * @param webRequest  current request
      * @return redirected on main page
      */
     @PostMapping(value = "/application/upload",
@@ -89,9 +121,10 @@ public class MainViewController {
                                     @RequestParam final Integer categoryId,
                                     @RequestParam final String description,
                                     @RequestParam final MultipartFile file,
-                                    final ModelMap modelMap) {
+                                    final ModelMap modelMap,
+                                    final ServletWebRequest webRequest) {
         String errorMessage = "";
-        initModelMapByMainValues(modelMap);
+        initModelMapByMainValues(modelMap, webRequest);
         if (applicationService.isExistApplicationByName(name)) {
             modelMap.put("categories", categoryService.getAllCategories());
             modelMap.put("errorMessage", APP_NAME_DUPLICATION_ERROR_MESSAGE);
@@ -99,9 +132,9 @@ public class MainViewController {
         }
 
         try {
-            applicationService
-                .uploadApplication(name, categoryId, description, file);
-            return "redirect:/";
+            final var job = uploadJobService
+                .submit(name, categoryId, description, file, userService.getUserName());
+            return "redirect:/?uploadJob=" + job.getId();
         } catch (IOException e) {
             modelMap.put("categories", categoryService.getAllCategories());
             modelMap.put("errorMessage",
@@ -121,9 +154,15 @@ public class MainViewController {
         return "login";
     }
 
-    private void initModelMapByMainValues(final ModelMap modelMap) {
+    private void initModelMapByMainValues(final ModelMap modelMap, final ServletWebRequest webRequest) {
         modelMap.put("isDeveloper", userService.isDeveloper());
         modelMap.put("userName", userService.getUserName());
-        modelMap.put("applications", applicationService.getSortedTopFiveApps());
+        modelMap.put("topFragment", catalogFragments.getTop(webRequest));
+    }
+
+    private boolean isNotModified(final ServletWebRequest webRequest, final String view, final ModelMap modelMap) {
+        Objects.requireNonNull(webRequest.getResponse())
+            .setHeader(HttpHeaders.CACHE_CONTROL, PAGE_CACHE_CONTROL.getHeaderValue());
+        return webRequest.checkNotModified(CatalogFragments.weakETag(view, modelMap.values().toArray()));
     }
 }
@@ -0,0 +1,93 @@
+package com.alexandervov.controller;
+
+import com.alexandervov.dao.UploadJobStatus;
+import com.alexandervov.service.ApplicationService;
+import com.alexandervov.service.UploadJobService;
+import com.alexandervov.service.UserService;
+import lombok.AllArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.net.URI;
+
+import static com.alexandervov.service.Constants.APP_NAME_DUPLICATION_ERROR_MESSAGE;
+
+@RestController
+@AllArgsConstructor
+@RequestMapping("/api/uploads")
+public class UploadController {
+
+    private final UploadJobService uploadJobService;
+    private final ApplicationService applicationService;
+    private final UserService userService;
+
+    /**
+     * Method for accepting application archive, archive is processed asynchronously.
+     *
+     * @param name        of uploaded application
+     * @param categoryId  of uploaded application
+     * @param description of uploaded application
+     * @param file        archive with apps txt and images
+     * @return accepted job, its status is available by Location header
+     * @throws IOException could be occurred during storing archive in staging directory
+     */
+    @PostMapping(consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
+    public ResponseEntity<UploadJobStatus> upload(@RequestParam final String name,
+                                                  @RequestParam final Integer categoryId,
+                                                  @RequestParam final String description,
+                                                  @RequestParam final MultipartFile file) throws IOException {
+        if (applicationService.isExistApplicationByName(name)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, APP_NAME_DUPLICATION_ERROR_MESSAGE);
+        }
+
+        final var job = uploadJobService.submit(name, categoryId, description, file, userService.getUserName());
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/uploads/" + job.getId()))
+            .body(uploadJobService.getStatus(job.getId(), job.getCreatedBy()).orElseThrow());
+    }
+
+    /**
+     * Method for accepting archive of new version of existing application, archive is processed asynchronously.
+     * The new version becomes the latest one, clients having the previous version could download delta.
+     *
+     * @param name        of existing application
+     * @param description optional new description of application
+     * @param file        archive with apps txt and images, package name should be the same
+     * @return accepted job, its status is available by Location header
+     * @throws IOException could be occurred during storing archive in staging directory
+     */
+    @PostMapping(value = "/versions", consumes = {MediaType.MULTIPART_FORM_DATA_VALUE})
+    public ResponseEntity<UploadJobStatus> uploadVersion(@RequestParam final String name,
+                                                         @RequestParam(required = false) final String description,
+                                                         @RequestParam final MultipartFile file) throws IOException {
+        final var application = applicationService.findApplicationByName(name).orElseThrow(() ->
+            new ResponseStatusException(HttpStatus.NOT_FOUND, "Application " + name + " doesn't exist"));
+
+        final var job = uploadJobService.submitVersion(application, description, file, userService.getUserName());
+        return ResponseEntity.accepted()
+            .location(URI.create("/api/uploads/" + job.getId()))
+            .body(uploadJobService.getStatus(job.getId(), job.getCreatedBy()).orElseThrow());
+    }
+
+    /**
+     * Method for polling upload job status, jobs of other users aren't found.
+     *
+     * @param id job id
+     * @return job status
+     */
+    @GetMapping("/{id}")
+    public UploadJobStatus getStatus(@PathVariable final String id) {
+        return uploadJobService.getStatus(id, userService.getUserName())
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    }
+}
@@ -1,6 +1,6 @@
 /**
- * The package contains main controller for view and model processing and
- * rest ApplicationController for downloading method.
+ * The package contains main controller for view and model processing,
+ * rest ApplicationController for downloading method and ImageController for application pictures.
  *
  * @author Alexander Voyuev
  * @version 1.0
@@ -0,0 +1,18 @@
+package com.alexandervov.dao;
+
+/**
+ * Projection of application package or delta metadata used for streaming downloads.
+ */
+public interface ApplicationArchive {
+
+    Integer getApplicationId();
+
+    String getPackageHash();
+
+    long getContentSize();
+
+    /**
+     * @return version of application the package (or delta) turns into
+     */
+    Integer getVersion();
+}
@@ -0,0 +1,55 @@
+package com.alexandervov.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in catalog listing ordered by download counter and id descending.
+ * Encoded into opaque url-safe token given to clients for requesting next page.
+ *
+ * @param downloadCounter download counter of the last listed application
+ * @param id              id of the last listed application
+ */
+public record ApplicationCursor(int downloadCounter, int id) {
+
+    private static final String SEPARATOR = ":";
+
+    /**
+     * Method for getting cursor pointing after given application.
+     *
+     * @param application last application of a page
+     * @return cursor
+     */
+    public static ApplicationCursor after(final ApplicationDao application) {
+        return new ApplicationCursor(application.getDownloadCounter(), application.getId());
+    }
+
+    /**
+     * Method for decoding cursor token.
+     *
+     * @param token encoded cursor
+     * @return cursor
+     * @throws IllegalArgumentException if token is malformed
+     */
+    public static ApplicationCursor decode(final String token) throws IllegalArgumentException {
+        final String[] values = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+            .split(SEPARATOR);
+        if (values.length != 2) {
+            throw new IllegalArgumentException("Wrong cursor: " + token);
+        }
+
+        try {
+            return new ApplicationCursor(Integer.parseInt(values[0]), Integer.parseInt(values[1]));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Wrong cursor: " + token, e);
+        }
+    }
+
+    /**
+     * @return url-safe token
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+            .encodeToString((downloadCounter + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+}
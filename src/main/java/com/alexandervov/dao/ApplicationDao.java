@@ -1,13 +1,17 @@
 package com.alexandervov.dao;
 
 import com.alexandervov.entity.Category;
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Objects;
+
 @Data
-@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ApplicationDao {
@@ -15,8 +19,48 @@ public class ApplicationDao {
     private String name;
     private String description;
     private String packageName;
-    private String picture128Base64;
-    private String picture512Base64;
     private Category category;
     private int downloadCounter;
+    private String picture128Hash;
+    private String picture512Hash;
+
+    /**
+     * Constructor used by listing projection queries, only small picture is referenced.
+     */
+    public ApplicationDao(final Integer id, final String name, final String description,
+                          final String packageName, final String picture128Hash,
+                          final Category category, final int downloadCounter) {
+        this(id, name, description, packageName, category, downloadCounter, picture128Hash, null);
+    }
+
+    /**
+     * Constructor used by details projection queries, both pictures are referenced.
+     */
+    public ApplicationDao(final Integer id, final String name, final String description,
+                          final String packageName, final String picture128Hash,
+                          final String picture512Hash, final Category category, final int downloadCounter) {
+        this(id, name, description, packageName, category, downloadCounter, picture128Hash, picture512Hash);
+    }
+
+    /**
+     * Url of small picture, picture hash is a part of url, so the url changes together with picture.
+     *
+     * @return url of picture or null if picture isn't referenced
+     */
+    public String getPicture128Url() {
+        return pictureUrl(128, picture128Hash);
+    }
+
+    /**
+     * Url of large picture, picture hash is a part of url, so the url changes together with picture.
+     *
+     * @return url of picture or null if picture isn't referenced
+     */
+    public String getPicture512Url() {
+        return pictureUrl(512, picture512Hash);
+    }
+
+    private String pictureUrl(final int size, final String hash) {
+        return Objects.isNull(hash) ? null : "/img/" + id + "/" + size + "?v=" + hash;
+    }
 }
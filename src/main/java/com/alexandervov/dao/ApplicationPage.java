@@ -0,0 +1,18 @@
+package com.alexandervov.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Page of catalog listings with cursor of the next page, cursor is null on the last page.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplicationPage {
+    private List<ApplicationDao> items;
+    private String nextCursor;
+}
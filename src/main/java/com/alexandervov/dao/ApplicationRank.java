@@ -0,0 +1,13 @@
+package com.alexandervov.dao;
+
+/**
+ * Lightweight projection of application used for popularity ranking.
+ */
+public interface ApplicationRank {
+
+    Integer getId();
+
+    String getName();
+
+    int getDownloadCounter();
+}
@@ -0,0 +1,11 @@
+package com.alexandervov.dao;
+
+/**
+ * Projection with quantity of applications in a category.
+ */
+public interface CategoryUsage {
+
+    Integer getCategoryId();
+
+    long getApplicationsQuantity();
+}
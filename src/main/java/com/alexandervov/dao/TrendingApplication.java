@@ -0,0 +1,16 @@
+package com.alexandervov.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Catalog listing with quantity of its downloads in a trending window.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendingApplication {
+    private ApplicationDao application;
+    private long downloads;
+}
@@ -0,0 +1,25 @@
+package com.alexandervov.dao;
+
+import com.alexandervov.entity.UploadJob;
+
+import java.time.Instant;
+
+/**
+ * Projection of upload job shown to clients polling upload status.
+ */
+public interface UploadJobStatus {
+
+    String getId();
+
+    String getName();
+
+    UploadJob.Status getStatus();
+
+    String getErrorMessage();
+
+    Integer getApplicationId();
+
+    Instant getCreatedAt();
+
+    Instant getUpdatedAt();
+}
@@ -1,5 +1,6 @@
 /**
- * This package contains ApplicationDao class using for model data on view.
+ * This package contains ApplicationDao class using for model data on view and ApplicationRank projection
+ * using for popularity ranking.
  *
  * @author Alexander Voyuev
  * @version 1.0
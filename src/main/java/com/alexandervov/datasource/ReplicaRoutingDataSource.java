@@ -0,0 +1,167 @@
+package com.alexandervov.datasource;
+
+import com.alexandervov.config.StoreProperties;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource sending connections of read-only transactions to read replicas and all other connections
+ * to primary. Replicas are chosen round-robin among healthy ones. Every replica is checked periodically
+ * by the lag query, replica is skipped while the query fails or returns lag above store.read-replicas.max-lag.
+ * Replica failing to give a connection is skipped until its next successful check. When no replica is healthy,
+ * read-only transactions use primary.
+ * Transaction read-only flag is set after the transaction manager obtains its connection, so this DataSource
+ * must be wrapped by {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements InitializingBean, DisposableBean {
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final StoreProperties.ReadReplicas properties;
+    private final TaskScheduler taskScheduler;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private ScheduledFuture<?> scheduledCheck;
+
+    public ReplicaRoutingDataSource(final DataSource primary, final List<HikariDataSource> replicas,
+                                    final StoreProperties.ReadReplicas properties,
+                                    final TaskScheduler taskScheduler) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.properties = properties;
+        this.taskScheduler = taskScheduler;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        checkReplicas();
+        log.info("Read-only transactions are routed to replicas {}", getReplicaStates());
+        scheduledCheck = taskScheduler.scheduleWithFixedDelay(this::checkReplicas, properties.getCheckInterval());
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduledCheck != null) {
+            scheduledCheck.cancel(false);
+        }
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    @Override
+    public Connection getConnection(final String username, final String password) throws SQLException {
+        if (!replicas.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            final int size = replicas.size();
+            final int start = Math.floorMod(nextReplica.getAndIncrement(), size);
+            for (int i = 0; i < size; i++) {
+                final var replica = replicas.get((start + i) % size);
+                if (!replica.healthy) {
+                    continue;
+                }
+                try {
+                    return connect(replica.dataSource, username, password);
+                } catch (SQLException e) {
+                    replica.markFailed(e);
+                }
+            }
+        }
+        return connect(primary, username, password);
+    }
+
+    /**
+     * Method for checking health and replication lag of every replica.
+     */
+    public void checkReplicas() {
+        final long maxLagMillis = properties.getMaxLag().toMillis();
+        final int queryTimeout = (int) Math.max(1, properties.getCheckInterval().toSeconds());
+        for (final Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(queryTimeout);
+                try (ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+                    final long lagMillis = resultSet.next() ? Math.round(resultSet.getDouble(1) * 1000) : 0;
+                    replica.lag = Duration.ofMillis(lagMillis);
+                    replica.lastError = null;
+                    replica.setHealthy(lagMillis <= maxLagMillis);
+                }
+            } catch (SQLException | RuntimeException e) {
+                replica.markFailed(e);
+            }
+        }
+    }
+
+    /**
+     * @return states of replicas in configuration order
+     */
+    public List<ReplicaState> getReplicaStates() {
+        return replicas.stream()
+            .map(replica -> new ReplicaState(replica.dataSource.getPoolName(), replica.healthy, replica.lag,
+                replica.lastError))
+            .toList();
+    }
+
+    private Connection connect(final DataSource dataSource, final String username, final String password)
+        throws SQLException {
+        return username == null ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+
+    /**
+     * State of replica shown by health endpoint.
+     *
+     * @param name      pool name of replica
+     * @param healthy   replica receives read-only transactions
+     * @param lag       replication lag measured by the last successful check
+     * @param lastError error of the last failed check or connection, null if replica is available
+     */
+    public record ReplicaState(String name, boolean healthy, Duration lag, String lastError) {
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource dataSource;
+        private volatile boolean healthy;
+        private volatile Duration lag = Duration.ZERO;
+        private volatile String lastError;
+
+        private Replica(final HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        private void setHealthy(final boolean healthy) {
+            if (this.healthy != healthy) {
+                if (healthy) {
+                    log.info("Replica {} is available, lag is {}", dataSource.getPoolName(), lag);
+                } else {
+                    log.warn("Replica {} is skipped, lag is {}, error is {}", dataSource.getPoolName(), lag,
+                        lastError);
+                }
+            }
+            this.healthy = healthy;
+        }
+
+        private void markFailed(final Exception e) {
+            lastError = Objects.requireNonNullElse(e.getMessage(), e.toString());
+            setHealthy(false);
+        }
+    }
+}
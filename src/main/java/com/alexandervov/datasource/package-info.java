@@ -0,0 +1,8 @@
+/**
+ * This package contains routing of read-only transactions to read replicas.
+ *
+ * @author Alexander Voyuev
+ * @version 1.0
+ */
+
+package com.alexandervov.datasource;
@@ -7,8 +7,8 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
-import jakarta.persistence.Lob;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -18,21 +18,29 @@ import lombok.NoArgsConstructor;
 @NoArgsConstructor
 public class Application {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     public Application(Builder builder) {
         this.name = builder.name;
         this.packageName = builder.packageName;
         this.description = builder.description;
         this.pictureName128 = builder.pictureName128;
         this.pictureName512 = builder.pictureName512;
-        this.picture128Base64Bytes = builder.picture128Base64Bytes;
-        this.picture512Base64Bytes = builder.picture512Base64Bytes;
-        this.packageContent = builder.packageContent;
+        this.picture128Hash = builder.picture128Hash;
+        this.picture512Hash = builder.picture512Hash;
+        this.packageHash = builder.packageHash;
+        this.packageSize = builder.packageSize;
         this.category = builder.category;
         this.downloadCounter = builder.downloadCounter;
     }
 
+    /**
+     * Ids are allocated from sequence in blocks, so inserts of many applications are batched by JDBC driver.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "application_id_seq")
+    @SequenceGenerator(name = "application_id_seq", sequenceName = "application_id_seq",
+        allocationSize = ID_ALLOCATION_SIZE)
     private Integer id;
 
     @NotNull
@@ -45,27 +53,38 @@ public class Application {
     private String description;
     private String pictureName128;
     private String pictureName512;
-    @Lob
-    private byte[] picture128Base64Bytes;
-    @Lob
-    private byte[] picture512Base64Bytes;
-    @Lob
-    private byte[] packageContent;
+
+    /**
+     * Pictures and package content are kept in blob store, only their SHA-256 hashes are stored in db.
+     */
+    @Column(length = 64)
+    private String picture128Hash;
+    @Column(length = 64)
+    private String picture512Hash;
+    @Column(length = 64)
+    private String packageHash;
+    private Long packageSize;
 
     @NotNull
     @ManyToOne(fetch = FetchType.EAGER, cascade = CascadeType.MERGE)
     private Category category;
     private int downloadCounter;
 
+    /**
+     * Number of version whose package is referenced by packageHash.
+     */
+    private int latestVersion = 1;
+
     public static class Builder {
         private String name;
         private String packageName;
         private String description;
         private String pictureName128;
         private String pictureName512;
-        private byte[] picture128Base64Bytes;
-        private byte[] picture512Base64Bytes;
-        private byte[] packageContent;
+        private String picture128Hash;
+        private String picture512Hash;
+        private String packageHash;
+        private Long packageSize;
         private Category category;
         private int downloadCounter;
 
@@ -99,18 +118,23 @@ public class Application {
             return this;
         }
 
-        public Builder picture128Base64Bytes(byte[] picture128Base64Bytes) {
-            this.picture128Base64Bytes = picture128Base64Bytes;
+        public Builder picture128Hash(String picture128Hash) {
+            this.picture128Hash = picture128Hash;
+            return this;
+        }
+
+        public Builder picture512Hash(String picture512Hash) {
+            this.picture512Hash = picture512Hash;
             return this;
         }
 
-        public Builder picture512Base64Bytes(byte[] picture512Base64Bytes) {
-            this.picture512Base64Bytes = picture512Base64Bytes;
+        public Builder packageHash(String packageHash) {
+            this.packageHash = packageHash;
             return this;
         }
 
-        public Builder packageContent(byte[] packageContent) {
-            this.packageContent = packageContent;
+        public Builder packageSize(Long packageSize) {
+            this.packageSize = packageSize;
             return this;
         }
 
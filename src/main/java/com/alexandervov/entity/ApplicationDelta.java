@@ -0,0 +1,42 @@
+package com.alexandervov.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Precomputed patch turning package of one application version into package of the next version.
+ * Delta without hash means it isn't smaller than the target package, so clients download the whole package.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+public class ApplicationDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private Integer applicationId;
+
+    @Column(nullable = false)
+    private int fromVersion;
+
+    @Column(nullable = false)
+    private int toVersion;
+
+    @Column(length = 64)
+    private String deltaHash;
+
+    private Long deltaSize;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
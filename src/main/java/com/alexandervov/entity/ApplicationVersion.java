@@ -0,0 +1,56 @@
+package com.alexandervov.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Uploaded package of application, versions of the same application are numbered from 1.
+ * The latest version is referenced by {@link Application#getLatestVersion()}.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+public class ApplicationVersion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false)
+    private Integer applicationId;
+
+    @Column(nullable = false)
+    private int version;
+
+    @Column(nullable = false, length = 64)
+    private String packageHash;
+
+    @Column(nullable = false)
+    private Long packageSize;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    /**
+     * Method for creating version of the current application package.
+     *
+     * @param application saved application
+     * @return version referencing package of the application
+     */
+    public static ApplicationVersion of(final Application application) {
+        final var version = new ApplicationVersion();
+        version.setApplicationId(application.getId());
+        version.setVersion(application.getLatestVersion());
+        version.setPackageHash(application.getPackageHash());
+        version.setPackageSize(application.getPackageSize());
+        version.setCreatedAt(Instant.now());
+        return version;
+    }
+}
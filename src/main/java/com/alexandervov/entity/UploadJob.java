@@ -0,0 +1,72 @@
+package com.alexandervov.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Accepted upload of application archive, archive is kept in staging directory until job is processed.
+ */
+@Data
+@Entity
+@NoArgsConstructor
+public class UploadJob {
+
+    public static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+
+    @Id
+    @Column(length = 36)
+    private String id;
+
+    @Column(nullable = false)
+    private String name;
+
+    @Column(nullable = false)
+    private Integer categoryId;
+
+    @Column(nullable = false)
+    private String description;
+
+    @Column(nullable = false, length = 1024)
+    private String stagingFile;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    @Column(length = MAX_ERROR_MESSAGE_LENGTH)
+    private String errorMessage;
+
+    private Integer applicationId;
+
+    /**
+     * True if archive is a new version of existing application with the job name.
+     */
+    private boolean newVersion;
+
+    private String createdBy;
+
+    /**
+     * Node keeping the staging file, only this node processes the job.
+     */
+    private String node;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+
+    @Column(nullable = false)
+    private Instant updatedAt;
+
+    public enum Status {
+        PENDING,
+        PROCESSING,
+        DONE,
+        FAILED
+    }
+}
@@ -0,0 +1,52 @@
+package com.alexandervov.metrics;
+
+import com.alexandervov.service.ApplicationDetailsCache;
+import com.alexandervov.service.CategoryService;
+import com.alexandervov.view.CatalogFragments;
+import com.alexandervov.view.FragmentCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Binding of in-process caches to the standard cache.gets and cache.size meters,
+ * hit ratio of a cache is cache.gets with hit result divided by all cache.gets.
+ */
+@Component
+@RequiredArgsConstructor
+public class CacheMetrics implements MeterBinder {
+
+    private final CategoryService categoryService;
+    private final CatalogFragments catalogFragments;
+    private final ApplicationDetailsCache detailsCache;
+
+    @Override
+    public void bindTo(final MeterRegistry registry) {
+        gets(registry, "categories", "hit", categoryService, CategoryService::getHitCount);
+        gets(registry, "categories", "miss", categoryService, CategoryService::getMissCount);
+
+        final var fragments = catalogFragments.getCache();
+        gets(registry, "fragments", "hit", fragments, FragmentCache::getHitCount);
+        gets(registry, "fragments", "miss", fragments, FragmentCache::getMissCount);
+        Gauge.builder("cache.size", fragments, FragmentCache::size)
+            .tag("cache", "fragments")
+            .register(registry);
+
+        CaffeineCacheMetrics.monitor(registry, detailsCache.getDetailsCache(), "application-details");
+        CaffeineCacheMetrics.monitor(registry, detailsCache.getIconsCache(), "application-icons");
+    }
+
+    private static <T> void gets(final MeterRegistry registry, final String cache, final String result,
+                                 final T source, final ToDoubleFunction<T> count) {
+        FunctionCounter.builder("cache.gets", source, count)
+            .tag("cache", cache)
+            .tag("result", result)
+            .register(registry);
+    }
+}
@@ -0,0 +1,87 @@
+package com.alexandervov.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transferred bytes and in-flight downloads of packages and deltas.
+ * Bytes are counted while they are written, so rate of store.download.bytes is the current download throughput.
+ * Transfers made by Tomcat sendfile are counted when they are handed over to the connector.
+ */
+@Component
+public class DownloadMetrics {
+
+    public static final String PACKAGE = "package";
+    public static final String DELTA = "delta";
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public DownloadMetrics(final MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        meterRegistry.gauge("store.download.in.flight", inFlight);
+    }
+
+    /**
+     * Method for streaming download while counting its bytes.
+     *
+     * @param type         {@link #PACKAGE} or {@link #DELTA}
+     * @param outputStream response stream
+     * @param transfer     writing of content
+     * @throws IOException could be occurred during transfer
+     */
+    public void transfer(final String type, final OutputStream outputStream,
+                         final Transfer transfer) throws IOException {
+        final var bytes = bytes(type);
+        inFlight.incrementAndGet();
+        try {
+            transfer.writeTo(new FilterOutputStream(outputStream) {
+                @Override
+                public void write(final int b) throws IOException {
+                    out.write(b);
+                    bytes.increment();
+                }
+
+                @Override
+                public void write(final byte[] content, final int off, final int len) throws IOException {
+                    out.write(content, off, len);
+                    bytes.increment(len);
+                }
+            });
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    /**
+     * Method for counting download sent by Tomcat sendfile.
+     *
+     * @param type   {@link #PACKAGE} or {@link #DELTA}
+     * @param length quantity of bytes
+     */
+    public void recordSendfile(final String type, final long length) {
+        bytes(type).increment(length);
+    }
+
+    private Counter bytes(final String type) {
+        return Counter.builder("store.download.bytes")
+            .description("Bytes of packages and deltas sent to clients")
+            .baseUnit("bytes")
+            .tag("type", type)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Writing of download content.
+     */
+    @FunctionalInterface
+    public interface Transfer {
+        void writeTo(OutputStream outputStream) throws IOException;
+    }
+}
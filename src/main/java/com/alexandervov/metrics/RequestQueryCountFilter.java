@@ -0,0 +1,66 @@
+package com.alexandervov.metrics;
+
+import com.alexandervov.config.StoreProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Objects;
+
+/**
+ * Filter recording quantities of SQL statements and loaded entities per request,
+ * tagged by request mapping pattern, so N+1 regressions show up as growing statements per request of an endpoint.
+ * Requests exceeding store.metrics.request-queries-threshold are logged.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RequestQueryCountFilter extends OncePerRequestFilter {
+
+    private static final String UNKNOWN_URI = "UNKNOWN";
+
+    private final RequestQueryCounter requestQueryCounter;
+    private final MeterRegistry meterRegistry;
+    private final StoreProperties storeProperties;
+
+    @Override
+    protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
+                                    final FilterChain filterChain) throws ServletException, IOException {
+        requestQueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            final var counts = requestQueryCounter.stop();
+            final var uri = Objects.toString(request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE),
+                UNKNOWN_URI);
+            summary("store.http.request.queries", "SQL statements prepared per request", request, uri)
+                .record(counts.getQueries());
+            summary("store.http.request.loaded.entities", "Entities loaded per request", request, uri)
+                .record(counts.getLoadedEntities());
+
+            final int threshold = storeProperties.getMetrics().getRequestQueriesThreshold();
+            if (threshold > 0 && counts.getQueries() > threshold) {
+                log.warn("{} {} prepared {} SQL statements and loaded {} entities", request.getMethod(), uri,
+                    counts.getQueries(), counts.getLoadedEntities());
+            }
+        }
+    }
+
+    private DistributionSummary summary(final String name, final String description,
+                                        final HttpServletRequest request, final String uri) {
+        return DistributionSummary.builder(name)
+            .description(description)
+            .tag("method", request.getMethod())
+            .tag("uri", uri)
+            .register(meterRegistry);
+    }
+}
@@ -0,0 +1,80 @@
+package com.alexandervov.metrics;
+
+import org.hibernate.Interceptor;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.hibernate.type.Type;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Counter of SQL statements prepared and entities loaded by Hibernate on the current thread.
+ * Counting is active only between {@link #start()} and {@link #stop()}, so statements of background jobs
+ * aren't attributed to requests.
+ */
+@Component
+public class RequestQueryCounter implements StatementInspector, Interceptor, HibernatePropertiesCustomizer {
+
+    private static final ThreadLocal<Counts> COUNTS = new ThreadLocal<>();
+
+    @Override
+    public void customize(final Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, this);
+        hibernateProperties.put(AvailableSettings.INTERCEPTOR, this);
+    }
+
+    /**
+     * Method for starting counting on the current thread.
+     */
+    public void start() {
+        COUNTS.set(new Counts());
+    }
+
+    /**
+     * Method for stopping counting on the current thread.
+     *
+     * @return counts since {@link #start()}
+     */
+    public Counts stop() {
+        final var counts = COUNTS.get();
+        COUNTS.remove();
+        return counts == null ? new Counts() : counts;
+    }
+
+    @Override
+    public String inspect(final String sql) {
+        final var counts = COUNTS.get();
+        if (counts != null) {
+            counts.queries++;
+        }
+        return sql;
+    }
+
+    @Override
+    public boolean onLoad(final Object entity, final Object id, final Object[] state, final String[] propertyNames,
+                          final Type[] types) {
+        final var counts = COUNTS.get();
+        if (counts != null) {
+            counts.loadedEntities++;
+        }
+        return false;
+    }
+
+    /**
+     * Quantities of statements and entities of one request.
+     */
+    public static final class Counts {
+        private int queries;
+        private int loadedEntities;
+
+        public int getQueries() {
+            return queries;
+        }
+
+        public int getLoadedEntities() {
+            return loadedEntities;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * This package contains Micrometer instrumentation of persistence, downloads and caches.
+ *
+ * @author Alexander Voyuev
+ * @version 1.0
+ */
+
+package com.alexandervov.metrics;
@@ -0,0 +1,140 @@
+package com.alexandervov.migration;
+
+import com.alexandervov.storage.BlobStore;
+import com.alexandervov.storage.BlobWriter;
+import com.alexandervov.storage.StoredBlob;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.sql.Blob;
+import java.sql.SQLException;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Migration moving packages and pictures stored in db LOB columns into the blob store.
+ * Packages are read from application_package, where V1_1 has copied them from application.package_content,
+ * base64 pictures are read from the columns of application. The migration runs in the transaction of Flyway,
+ * so an interrupted migration is rolled back and repeated on the next start, blobs already put into the store
+ * are overwritten with the same content. Emptied columns and application_package are dropped by V4_2.
+ * Spring Boot registers the migration bean in Flyway, the blob store must not depend on beans initialized
+ * after Flyway.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class V4_1__MoveLegacyLobs extends BaseJavaMigration {
+
+    private static final String SELECT_LEGACY_SQL = "SELECT id, package_id FROM application "
+        + "WHERE package_id IS NOT NULL OR picture128base64bytes IS NOT NULL OR picture512base64bytes IS NOT NULL";
+    private static final String SELECT_PACKAGE_SQL = "SELECT content FROM application_package WHERE id = ?";
+    private static final String SELECT_PICTURES_SQL =
+        "SELECT picture128base64bytes, picture512base64bytes FROM application WHERE id = ?";
+    private static final String UNLINK_PACKAGE_SQL =
+        "SELECT lo_unlink(content) FROM application_package WHERE id = ? AND content IS NOT NULL";
+    private static final String UNLINK_PICTURE_128_SQL =
+        "SELECT lo_unlink(picture128base64bytes) FROM application WHERE id = ? AND picture128base64bytes IS NOT NULL";
+    private static final String UNLINK_PICTURE_512_SQL =
+        "SELECT lo_unlink(picture512base64bytes) FROM application WHERE id = ? AND picture512base64bytes IS NOT NULL";
+    private static final String UPDATE_APPLICATION_SQL = "UPDATE application SET "
+        + "package_hash = COALESCE(?, package_hash), package_size = COALESCE(?, package_size), "
+        + "picture128hash = ?, picture512hash = ?, package_id = NULL, "
+        + "picture128base64bytes = NULL, picture512base64bytes = NULL WHERE id = ?";
+    private static final String DELETE_PACKAGE_SQL = "DELETE FROM application_package WHERE id = ?";
+    private static final String POSTGRESQL_PRODUCT_NAME = "PostgreSQL";
+
+    private final BlobStore blobStore;
+
+    @Override
+    public void migrate(final Context context) throws SQLException {
+        final var connection = context.getConnection();
+        final var jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+        final List<Integer[]> legacyApplications = jdbcTemplate.query(SELECT_LEGACY_SQL,
+            (rs, rowNum) -> new Integer[]{rs.getInt(1), rs.getObject(2, Integer.class)});
+        if (legacyApplications.isEmpty()) {
+            return;
+        }
+
+        final boolean unlinkLargeObjects =
+            POSTGRESQL_PRODUCT_NAME.equals(connection.getMetaData().getDatabaseProductName());
+        log.info("Moving content of {} applications from db to blob store", legacyApplications.size());
+        for (Integer[] application : legacyApplications) {
+            migrateApplication(jdbcTemplate, application[0], application[1], unlinkLargeObjects);
+        }
+        log.info("Content of {} applications is moved to blob store", legacyApplications.size());
+    }
+
+    private void migrateApplication(final JdbcTemplate jdbcTemplate, final int id, final Integer packageId,
+                                    final boolean unlinkLargeObjects) {
+        final StoredBlob storedPackage = packageId == null ? null : jdbcTemplate.query(SELECT_PACKAGE_SQL, rs -> {
+            rs.next();
+            final Blob blob = rs.getBlob(1);
+            try (BlobWriter writer = blobStore.newBlob()) {
+                if (blob != null) {
+                    try (InputStream inputStream = blob.getBinaryStream()) {
+                        inputStream.transferTo(writer);
+                    } finally {
+                        blob.free();
+                    }
+                }
+                return writer.commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, packageId);
+
+        final String[] pictureHashes = jdbcTemplate.query(SELECT_PICTURES_SQL, rs -> {
+            rs.next();
+            return new String[]{storePicture(readBytes(rs.getBlob(1))), storePicture(readBytes(rs.getBlob(2)))};
+        }, id);
+
+        if (unlinkLargeObjects) {
+            if (packageId != null) {
+                jdbcTemplate.query(UNLINK_PACKAGE_SQL, rs -> {
+                }, packageId);
+            }
+            jdbcTemplate.query(UNLINK_PICTURE_128_SQL, rs -> {
+            }, id);
+            jdbcTemplate.query(UNLINK_PICTURE_512_SQL, rs -> {
+            }, id);
+        }
+
+        jdbcTemplate.update(UPDATE_APPLICATION_SQL, storedPackage == null ? null : storedPackage.hash(),
+            storedPackage == null ? null : storedPackage.size(), pictureHashes[0], pictureHashes[1], id);
+        if (packageId != null) {
+            jdbcTemplate.update(DELETE_PACKAGE_SQL, packageId);
+        }
+    }
+
+    private byte[] readBytes(final Blob blob) throws SQLException {
+        if (blob == null) {
+            return null;
+        }
+
+        try {
+            return blob.getBytes(1, (int) blob.length());
+        } finally {
+            blob.free();
+        }
+    }
+
+    private String storePicture(final byte[] base64Bytes) {
+        if (base64Bytes == null) {
+            return null;
+        }
+
+        try {
+            return blobStore.put(Base64.getDecoder().decode(base64Bytes)).hash();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+/**
+ * This package contains Java-based Flyway migrations, SQL migrations are placed in db/migration/{vendor}.
+ *
+ * @author Alexander Voyuev
+ * @version 1.0
+ */
+
+package com.alexandervov.migration;
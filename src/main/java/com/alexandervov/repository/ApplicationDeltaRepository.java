@@ -0,0 +1,30 @@
+package com.alexandervov.repository;
+
+import com.alexandervov.dao.ApplicationArchive;
+import com.alexandervov.entity.ApplicationDelta;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ApplicationDeltaRepository extends CrudRepository<ApplicationDelta, Integer> {
+
+    boolean existsByApplicationIdAndToVersion(int applicationId, int toVersion);
+
+    /**
+     * Delta metadata used for streaming, deltas not smaller than their packages aren't served.
+     *
+     * @param name        application name
+     * @param fromVersion version installed by client
+     * @return delta to the next version
+     */
+    @Query("select d.applicationId as applicationId, d.deltaHash as packageHash, d.deltaSize as contentSize, "
+        + "d.toVersion as version from ApplicationDelta d, Application a "
+        + "where a.name = :name and d.applicationId = a.id and d.fromVersion = :fromVersion "
+        + "and d.deltaHash is not null")
+    Optional<ApplicationArchive> findArchiveByNameAndFromVersion(@Param("name") String name,
+                                                                 @Param("fromVersion") int fromVersion);
+}
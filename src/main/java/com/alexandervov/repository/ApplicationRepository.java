@@ -1,18 +1,129 @@
 package com.alexandervov.repository;
 
+import com.alexandervov.dao.ApplicationArchive;
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.dao.ApplicationRank;
 import com.alexandervov.entity.Application;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Repository
 @Transactional
-public interface ApplicationRepository extends CrudRepository<Application, Integer> {
+public interface ApplicationRepository extends CrudRepository<Application, Integer>,
+    PagingAndSortingRepository<Application, Integer> {
+
+    /**
+     * Columns selected for catalog listings.
+     */
+    String LISTING_PROJECTION = "select new com.alexandervov.dao.ApplicationDao("
+        + "a.id, a.name, a.description, a.packageName, a.picture128Hash, c, a.downloadCounter) "
+        + "from Application a join a.category c";
+
+    /**
+     * Columns selected for application details page.
+     */
+    String DETAILS_PROJECTION = "select new com.alexandervov.dao.ApplicationDao("
+        + "a.id, a.name, a.description, a.packageName, a.picture128Hash, a.picture512Hash, "
+        + "c, a.downloadCounter) "
+        + "from Application a join a.category c";
+
+    /**
+     * Ordering of catalog listings, stable for keyset pagination.
+     */
+    String LISTING_ORDER = " order by a.downloadCounter desc, a.id desc";
+
+    /**
+     * Condition selecting listings placed after cursor in {@link #LISTING_ORDER}.
+     */
+    String AFTER_CURSOR = "(a.downloadCounter < :downloadCounter "
+        + "or (a.downloadCounter = :downloadCounter and a.id < :id))";
 
     Optional<Application> findApplicationByName(String name);
 
     List<Application> findApplicationsByCategoryId(int id);
+
+    boolean existsByName(String name);
+
+    @Query("select a.name from Application a where a.name in :names")
+    Set<String> findExistingNames(@Param("names") Collection<String> names);
+
+    @Query(LISTING_PROJECTION + " where a.id = :id")
+    Optional<ApplicationDao> findListingById(@Param("id") int id);
+
+    @Query(LISTING_PROJECTION + " where a.id in :ids")
+    List<ApplicationDao> findListingsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * First page of catalog, served by the (download_counter DESC, id DESC) index.
+     *
+     * @param pageable first page of requested size
+     * @return listings
+     */
+    @Query(LISTING_PROJECTION + LISTING_ORDER)
+    List<ApplicationDao> findListings(Pageable pageable);
+
+    @Query(LISTING_PROJECTION + " where " + AFTER_CURSOR + LISTING_ORDER)
+    List<ApplicationDao> findListingsAfter(@Param("downloadCounter") int downloadCounter, @Param("id") int id,
+                                           Pageable pageable);
+
+    /**
+     * First page of category, served by the (category_id, download_counter DESC, id DESC) index.
+     *
+     * @param categoryId category
+     * @param pageable   first page of requested size
+     * @return listings
+     */
+    @Query(LISTING_PROJECTION + " where c.id = :categoryId" + LISTING_ORDER)
+    List<ApplicationDao> findListingsByCategoryId(@Param("categoryId") int categoryId, Pageable pageable);
+
+    @Query(LISTING_PROJECTION + " where c.id = :categoryId and " + AFTER_CURSOR + LISTING_ORDER)
+    List<ApplicationDao> findListingsByCategoryIdAfter(@Param("categoryId") int categoryId,
+                                                       @Param("downloadCounter") int downloadCounter,
+                                                       @Param("id") int id, Pageable pageable);
+
+    /**
+     * Details of application loaded into details cache, read-only transaction goes to a read replica
+     * when they are configured.
+     *
+     * @param id application id
+     * @return details
+     */
+    @Transactional(readOnly = true)
+    @Query(DETAILS_PROJECTION + " where a.id = :id")
+    Optional<ApplicationDao> findDetailsById(@Param("id") int id);
+
+    List<ApplicationRank> findAllProjectedBy();
+
+    @Query("select a.id as applicationId, a.packageHash as packageHash, a.packageSize as contentSize, "
+        + "a.latestVersion as version from Application a where a.name = :name")
+    Optional<ApplicationArchive> findArchiveByName(@Param("name") String name);
+
+    /**
+     * Update of package columns when new version is uploaded. Download counter isn't written,
+     * so increments flushed by {@link com.alexandervov.service.DownloadCounterBuffer} aren't overwritten.
+     *
+     * @param application   application with package of the new latest version
+     * @param latestVersion version expected to be the latest before update
+     * @return 0 if another version was uploaded concurrently
+     */
+    @Modifying
+    @Query("update Application a set a.latestVersion = :#{#application.latestVersion}, "
+        + "a.description = :#{#application.description}, a.packageName = :#{#application.packageName}, "
+        + "a.pictureName128 = :#{#application.pictureName128}, a.pictureName512 = :#{#application.pictureName512}, "
+        + "a.picture128Hash = :#{#application.picture128Hash}, a.picture512Hash = :#{#application.picture512Hash}, "
+        + "a.packageHash = :#{#application.packageHash}, a.packageSize = :#{#application.packageSize} "
+        + "where a.id = :#{#application.id} and a.latestVersion = :latestVersion")
+    int updateLatestVersion(@Param("application") Application application,
+                            @Param("latestVersion") int latestVersion);
 }
@@ -0,0 +1,25 @@
+package com.alexandervov.repository;
+
+import com.alexandervov.entity.ApplicationVersion;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ApplicationVersionRepository extends CrudRepository<ApplicationVersion, Integer> {
+
+    Optional<ApplicationVersion> findByApplicationIdAndVersion(int applicationId, int version);
+
+    /**
+     * Versions having previous version but no delta from it, e.g. interrupted by shutdown.
+     *
+     * @return versions ordered by creation
+     */
+    @Query("select v from ApplicationVersion v where v.version > 1 and not exists ("
+        + "select d.id from ApplicationDelta d where d.applicationId = v.applicationId and d.toVersion = v.version) "
+        + "order by v.createdAt")
+    List<ApplicationVersion> findVersionsWithoutDelta();
+}
@@ -1,10 +1,18 @@
 package com.alexandervov.repository;
 
+import com.alexandervov.dao.CategoryUsage;
 import com.alexandervov.entity.Category;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+
 @Repository
 public interface CategoryRepository extends CrudRepository<Category, Integer> {
     Category findByName(String name);
+
+    @Query("select a.category.id as categoryId, count(a.id) as applicationsQuantity "
+        + "from Application a group by a.category.id")
+    List<CategoryUsage> countApplicationsByCategory();
 }
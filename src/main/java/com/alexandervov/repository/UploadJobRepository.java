@@ -0,0 +1,64 @@
+package com.alexandervov.repository;
+
+import com.alexandervov.dao.UploadJobStatus;
+import com.alexandervov.entity.UploadJob;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface UploadJobRepository extends CrudRepository<UploadJob, String> {
+
+    Optional<UploadJobStatus> findStatusByIdAndCreatedBy(String id, String createdBy);
+
+    /**
+     * Jobs of a node, jobs without node are included if they aren't claimed yet.
+     *
+     * @param node     node name
+     * @param statuses statuses of selected jobs
+     * @return jobs in submission order
+     */
+    @Query("select j from UploadJob j where (j.node = :node or j.node is null) and j.status in :statuses "
+        + "order by j.createdAt")
+    List<UploadJob> findByNodeAndStatusIn(@Param("node") String node,
+                                          @Param("statuses") List<UploadJob.Status> statuses);
+
+    /**
+     * Atomic change of job status, only one of concurrent callers changes the row.
+     *
+     * @param id        job id
+     * @param node      node processing the job
+     * @param from      expected status
+     * @param to        new status
+     * @param updatedAt change time
+     * @return 1 if the job had the expected status, 0 otherwise
+     */
+    @Transactional
+    @Modifying
+    @Query("update UploadJob j set j.status = :to, j.node = :node, j.updatedAt = :updatedAt "
+        + "where j.id = :id and j.status = :from")
+    int updateStatus(@Param("id") String id, @Param("node") String node, @Param("from") UploadJob.Status from,
+                     @Param("to") UploadJob.Status to, @Param("updatedAt") Instant updatedAt);
+
+    /**
+     * Change of status of all node jobs, used to return jobs interrupted by shutdown to the queue.
+     *
+     * @param node      node name
+     * @param from      current status
+     * @param to        new status
+     * @param updatedAt change time
+     * @return quantity of changed jobs
+     */
+    @Transactional
+    @Modifying
+    @Query("update UploadJob j set j.status = :to, j.updatedAt = :updatedAt where j.node = :node and j.status = :from")
+    int updateStatusByNode(@Param("node") String node, @Param("from") UploadJob.Status from,
+                           @Param("to") UploadJob.Status to, @Param("updatedAt") Instant updatedAt);
+}
@@ -0,0 +1,154 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.repository.ApplicationRepository;
+import com.alexandervov.storage.BlobStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Two tier cache of application details. The first tier keeps details by application id,
+ * the second one keeps picture payloads by content hash, so details pages and their pictures are served
+ * without db and blob store access. Both tiers are bounded by estimated size in bytes and use W-TinyLFU admission,
+ * so rarely requested applications don't evict popular ones. Picture payloads could be softly referenced
+ * to be released under memory pressure.
+ * Download counter of cached details is taken from the leaderboard, which is synchronized with all nodes
+ * after every compaction, so counter flushes don't invalidate details.
+ * Pictures are immutable by hash, details are invalidated when a new version is uploaded.
+ * Details of applications written by this node are loaded from primary for store.read-replicas.max-lag
+ * plus check-interval after the write, so the uploader doesn't get missing or old details from a lagging replica
+ * and they aren't cached for everyone.
+ */
+@Service
+public class ApplicationDetailsCache {
+
+    private static final int DETAILS_OVERHEAD = 256;
+    private static final int ICON_OVERHEAD = 96;
+
+    private final ApplicationRepository applicationRepository;
+    private final BlobStore blobStore;
+    private final PopularApplicationsLeaderboard leaderboard;
+    private final Cache<Integer, ApplicationDao> details;
+    private final Cache<String, byte[]> icons;
+    private final Cache<Integer, Boolean> recentlyWritten;
+    private final TransactionTemplate transactionTemplate;
+
+    public ApplicationDetailsCache(final ApplicationRepository applicationRepository,
+                                   final BlobStore blobStore,
+                                   final PopularApplicationsLeaderboard leaderboard,
+                                   final TransactionTemplate transactionTemplate,
+                                   final StoreProperties storeProperties) {
+        this.applicationRepository = applicationRepository;
+        this.blobStore = blobStore;
+        this.leaderboard = leaderboard;
+        this.transactionTemplate = transactionTemplate;
+
+        final var readReplicas = storeProperties.getReadReplicas();
+        this.recentlyWritten = Caffeine.newBuilder()
+            .expireAfterWrite(readReplicas.getMaxLag().plus(readReplicas.getCheckInterval()))
+            .build();
+
+        final var properties = storeProperties.getDetailsCache();
+        this.details = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxSize().toBytes())
+            .weigher(ApplicationDetailsCache::weigh)
+            .recordStats()
+            .build();
+
+        final var iconsBuilder = Caffeine.newBuilder()
+            .maximumWeight(properties.getMaxIconsSize().toBytes())
+            .weigher((String hash, byte[] icon) -> ICON_OVERHEAD + icon.length)
+            .recordStats();
+        if (properties.isSoftIcons()) {
+            iconsBuilder.softValues();
+        }
+        this.icons = iconsBuilder.build();
+    }
+
+    /**
+     * Method for getting application details.
+     *
+     * @param id application id
+     * @return details with current download counter, empty if application isn't exist
+     */
+    public Optional<ApplicationDao> getDetails(final int id) {
+        return Optional.ofNullable(details.get(id, this::load))
+            .map(this::withCurrentCounter);
+    }
+
+    /**
+     * Method for getting picture content.
+     *
+     * @param hash picture hash
+     * @return picture bytes
+     * @throws IOException could be occurred during reading blob store
+     */
+    public byte[] getIcon(final String hash) throws IOException {
+        try {
+            return icons.get(hash, key -> {
+                try {
+                    return blobStore.read(key);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Method for dropping cached details of uploaded or changed application,
+     * its details are loaded from primary until replicas catch up with the change.
+     *
+     * @param id application id
+     */
+    public void invalidate(final int id) {
+        recentlyWritten.put(id, Boolean.TRUE);
+        details.invalidate(id);
+    }
+
+    public Cache<Integer, ApplicationDao> getDetailsCache() {
+        return details;
+    }
+
+    public Cache<String, byte[]> getIconsCache() {
+        return icons;
+    }
+
+    private ApplicationDao load(final Integer id) {
+        if (recentlyWritten.getIfPresent(id) == null) {
+            return applicationRepository.findDetailsById(id).orElse(null);
+        }
+        // read-only query joins the read-write transaction, so it is routed to primary
+        return transactionTemplate.execute(status -> applicationRepository.findDetailsById(id).orElse(null));
+    }
+
+    private ApplicationDao withCurrentCounter(final ApplicationDao application) {
+        final int downloadCounter = leaderboard.getDownloadCounter(application.getId());
+        return downloadCounter < 0 || downloadCounter == application.getDownloadCounter()
+            ? application
+            : application.toBuilder().downloadCounter(downloadCounter).build();
+    }
+
+    /**
+     * Estimation of retained size: object headers and references plus two bytes per string character.
+     */
+    private static int weigh(final Integer id, final ApplicationDao application) {
+        return DETAILS_OVERHEAD + 2 * (length(application.getName()) + length(application.getDescription())
+            + length(application.getPackageName()) + length(application.getPicture128Hash())
+            + length(application.getPicture512Hash())
+            + (application.getCategory() == null ? 0 : length(application.getCategory().getName())));
+    }
+
+    private static int length(final String value) {
+        return value == null ? 0 : value.length();
+    }
+}
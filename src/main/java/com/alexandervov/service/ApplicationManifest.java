@@ -0,0 +1,124 @@
+package com.alexandervov.service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Values of application manifest, the txt file with {@code key: value} lines inside archive.
+ * Archive can contain several txt files, values of the first file containing a key win.
+ */
+public class ApplicationManifest {
+
+    public static final String PACKAGE_KEY = "package";
+    public static final String PICTURE_128_KEY = "picture_128";
+    public static final String PICTURE_512_KEY = "picture_512";
+
+    private static final Set<String> KNOWN_KEYS = Set.of(PACKAGE_KEY, PICTURE_128_KEY, PICTURE_512_KEY);
+    private static final byte[] UTF_8_BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+    private static final byte[] UTF_16BE_BOM = {(byte) 0xFE, (byte) 0xFF};
+    private static final byte[] UTF_16LE_BOM = {(byte) 0xFF, (byte) 0xFE};
+
+    private final Map<String, String> values = new HashMap<>();
+
+    /**
+     * Method for merging content of next txt file into manifest.
+     * Files without any known key (readme, license, etc.) are ignored.
+     *
+     * @param content        txt file content
+     * @param defaultCharset charset used when content doesn't start with BOM
+     * @return true if file is a manifest
+     */
+    public boolean merge(final byte[] content, final Charset defaultCharset) {
+        final var parsedValues = parse(content, defaultCharset);
+        if (parsedValues.keySet().stream().noneMatch(KNOWN_KEYS::contains)) {
+            return false;
+        }
+
+        parsedValues.forEach(values::putIfAbsent);
+        return true;
+    }
+
+    /**
+     * @return true if at least one manifest is merged
+     */
+    public boolean isFound() {
+        return values.keySet().stream().anyMatch(KNOWN_KEYS::contains);
+    }
+
+    /**
+     * @return true while any of pictures isn't declared, so pictures met in archive could be still needed
+     */
+    public boolean isPictureUndeclared() {
+        return !values.containsKey(PICTURE_128_KEY) || !values.containsKey(PICTURE_512_KEY);
+    }
+
+    public String getPackageName() {
+        return values.get(PACKAGE_KEY);
+    }
+
+    public String getPictureName128() {
+        return values.get(PICTURE_128_KEY);
+    }
+
+    public String getPictureName512() {
+        return values.get(PICTURE_512_KEY);
+    }
+
+    /**
+     * Method for parsing {@code key: value} lines, value is everything after the first colon,
+     * so values can contain colons. Empty lines and lines started with # are skipped.
+     *
+     * @param content        txt file content
+     * @param defaultCharset charset used when content doesn't start with BOM
+     * @return parsed values
+     */
+    static Map<String, String> parse(final byte[] content, final Charset defaultCharset) {
+        var charset = defaultCharset;
+        var offset = 0;
+        if (startsWith(content, UTF_8_BOM)) {
+            charset = StandardCharsets.UTF_8;
+            offset = UTF_8_BOM.length;
+        } else if (startsWith(content, UTF_16BE_BOM)) {
+            charset = StandardCharsets.UTF_16BE;
+            offset = UTF_16BE_BOM.length;
+        } else if (startsWith(content, UTF_16LE_BOM)) {
+            charset = StandardCharsets.UTF_16LE;
+            offset = UTF_16LE_BOM.length;
+        }
+
+        final var result = new HashMap<String, String>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+            new ByteArrayInputStream(content, offset, content.length - offset), charset))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                final var separatorIndex = line.indexOf(':');
+                if (line.isBlank() || line.stripLeading().startsWith("#") || separatorIndex < 0) {
+                    continue;
+                }
+
+                final var key = line.substring(0, separatorIndex).trim();
+                final var value = line.substring(separatorIndex + 1).trim();
+                if (!key.isEmpty() && !value.isEmpty()) {
+                    result.putIfAbsent(key, value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    private static boolean startsWith(final byte[] content, final byte[] prefix) {
+        return content.length >= prefix.length
+            && Arrays.equals(content, 0, prefix.length, prefix, 0, prefix.length);
+    }
+}
@@ -0,0 +1,403 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.repository.ApplicationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-process inverted index over application name, package name and description.
+ * Term dictionaries are sorted, so the last query term is expanded by prefix for typeahead,
+ * terms without exact match are expanded by edit distance. Text relevance is blended with download counter.
+ * Seeded from db on startup and updated on every upload, including uploads on other nodes.
+ * Queries run under the read lock and updates under the write lock, so readers never see a partial update.
+ * An update changes only posting lists of the terms of updated applications, so its cost doesn't depend
+ * on the size of the index. Reload builds a new index aside and swaps it in at once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ApplicationSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float PACKAGE_NAME_WEIGHT = 2.0f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final double EXACT_FACTOR = 1.0;
+    private static final double PREFIX_FACTOR = 0.7;
+    private static final double FUZZY_FACTOR = 0.5;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    // one or two typed characters match a large part of the dictionary, so they are expanded less
+    private static final int SHORT_PREFIX_LENGTH = 3;
+    private static final int MAX_SHORT_PREFIX_EXPANSIONS = 16;
+    private static final int MIN_FUZZY_TERM_LENGTH = 4;
+    private static final int LONG_TERM_LENGTH = 8;
+    private static final int SEED_PAGE_SIZE = 1000;
+
+    private final ApplicationRepository applicationRepository;
+    private final PopularApplicationsLeaderboard leaderboard;
+    private final StoreProperties storeProperties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+    // updates made while reload builds the new index, they are replayed on it before the swap
+    private List<Consumer<Index>> updatesDuringReload;
+
+    /**
+     * Method for seeding index from db, runs after db initialization.
+     * The new index is built aside without blocking queries and replaces the current one at once,
+     * updates made meanwhile are applied to both.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        lock.writeLock().lock();
+        try {
+            updatesDuringReload = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        final var seeded = new Index();
+        try {
+            final var pageable = PageRequest.ofSize(SEED_PAGE_SIZE);
+            var page = applicationRepository.findListings(pageable);
+            while (!page.isEmpty()) {
+                page.forEach(seeded::add);
+                final var last = page.get(page.size() - 1);
+                page = applicationRepository.findListingsAfter(last.getDownloadCounter(), last.getId(), pageable);
+            }
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                updatesDuringReload = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+
+        lock.writeLock().lock();
+        try {
+            updatesDuringReload.forEach(update -> update.accept(seeded));
+            updatesDuringReload = null;
+            index = seeded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Search index is seeded by {} applications with {} terms", seeded.documents.size(),
+            seeded.terms.size());
+    }
+
+    /**
+     * Method for indexing applications uploaded on other nodes, they are reported by leaderboard synchronization.
+     *
+     * @param event catalog change
+     */
+    @EventListener
+    public void onCatalogChanged(final CatalogChangedEvent event) {
+        if (!event.structural() || event.applicationIds().isEmpty()) {
+            return;
+        }
+
+        final List<Integer> missing;
+        lock.readLock().lock();
+        try {
+            missing = event.applicationIds().stream()
+                .filter(id -> !index.documents.containsKey(id))
+                .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!missing.isEmpty()) {
+            indexAll(applicationRepository.findListingsByIdIn(missing));
+        }
+    }
+
+    /**
+     * Method for adding application into index, previously indexed version of application is replaced.
+     *
+     * @param application listing of application
+     */
+    public void index(final ApplicationDao application) {
+        indexAll(List.of(application));
+    }
+
+    /**
+     * Method for adding applications into index in one update, previously indexed versions are replaced.
+     *
+     * @param applications listings of applications
+     */
+    public void indexAll(final Collection<ApplicationDao> applications) {
+        update(current -> applications.forEach(current::add));
+    }
+
+    /**
+     * Method for removing application from index.
+     *
+     * @param id application id
+     */
+    public void remove(final int id) {
+        update(current -> current.remove(id));
+    }
+
+    /**
+     * Method for full text search. Every query term is matched exactly or, if it has no exact match,
+     * by edit distance, the last term is also matched as a prefix.
+     *
+     * @param query text typed by user
+     * @param limit max quantity of results
+     * @return applications ordered by relevance
+     */
+    public List<ApplicationDao> search(final String query, final int limit) {
+        final var queryTerms = tokenize(query);
+        lock.readLock().lock();
+        try {
+            return find(index, index.terms, queryTerms, true, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Method for typeahead, query terms are matched against application names only, without edit distance.
+     *
+     * @param query text typed by user
+     * @param limit max quantity of results
+     * @return applications ordered by relevance
+     */
+    public List<ApplicationDao> suggest(final String query, final int limit) {
+        final var queryTerms = tokenize(query);
+        lock.readLock().lock();
+        try {
+            return find(index, index.nameTerms, queryTerms, false, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void update(final Consumer<Index> update) {
+        lock.writeLock().lock();
+        try {
+            update.accept(index);
+            if (updatesDuringReload != null) {
+                updatesDuringReload.add(update);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<ApplicationDao> find(final Index current, final NavigableMap<String, Map<Integer, Float>> dictionary,
+                                      final List<String> queryTerms, final boolean fuzzy, final int limit) {
+        if (queryTerms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        final Map<Integer, Score> scores = new HashMap<>();
+        for (int i = 0; i < queryTerms.size(); i++) {
+            final var term = queryTerms.get(i);
+            final Map<Integer, Double> termScores = new HashMap<>();
+            final int documents = current.documents.size();
+            match(dictionary, term, EXACT_FACTOR, documents, termScores);
+
+            if (i == queryTerms.size() - 1) {
+                dictionary.subMap(term, false, term + Character.MAX_VALUE, false).keySet().stream()
+                    .limit(term.length() < SHORT_PREFIX_LENGTH ? MAX_SHORT_PREFIX_EXPANSIONS : MAX_PREFIX_EXPANSIONS)
+                    .forEach(expansion -> match(dictionary, expansion, PREFIX_FACTOR, documents, termScores));
+            }
+
+            if (fuzzy && termScores.isEmpty() && term.length() >= MIN_FUZZY_TERM_LENGTH) {
+                final int maxEdits = term.length() >= LONG_TERM_LENGTH ? 2 : 1;
+                final var firstChar = term.substring(0, 1);
+                dictionary.subMap(firstChar, true, firstChar + Character.MAX_VALUE, false).keySet().stream()
+                    .filter(candidate -> Math.abs(candidate.length() - term.length()) <= maxEdits)
+                    .filter(candidate -> isWithinDistance(term, candidate, maxEdits))
+                    .forEach(candidate -> match(dictionary, candidate, FUZZY_FACTOR, documents, termScores));
+            }
+
+            termScores.forEach((id, score) -> scores.computeIfAbsent(id, key -> new Score()).add(score));
+        }
+
+        final var popularityWeight = storeProperties.getSearch().getPopularityWeight();
+        final Comparator<Map.Entry<Integer, Double>> order = Map.Entry.comparingByValue();
+        final PriorityQueue<Map.Entry<Integer, Double>> best = new PriorityQueue<>(limit + 1, order);
+        scores.forEach((id, score) -> {
+            final double coordination = (double) score.matchedTerms / queryTerms.size();
+            final double popularity = Math.log1p(Math.max(0, leaderboard.getDownloadCounter(id)));
+            best.add(Map.entry(id, score.relevance * coordination * (1 + popularityWeight * popularity)));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        });
+
+        final List<ApplicationDao> result = new ArrayList<>(best.size());
+        while (!best.isEmpty()) {
+            final var document = current.documents.get(best.poll().getKey());
+            if (document != null) {
+                result.add(withCurrentCounter(document.listing()));
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    private void match(final NavigableMap<String, Map<Integer, Float>> dictionary, final String term,
+                       final double factor, final int documents, final Map<Integer, Double> termScores) {
+        final var postings = dictionary.get(term);
+        if (postings == null || postings.isEmpty()) {
+            return;
+        }
+
+        final double idf = Math.log(1 + (double) documents / postings.size());
+        postings.forEach((id, weight) -> termScores.merge(id, weight * idf * factor, Math::max));
+    }
+
+    private ApplicationDao withCurrentCounter(final ApplicationDao listing) {
+        final int downloadCounter = leaderboard.getDownloadCounter(listing.getId());
+        return downloadCounter < 0 || downloadCounter == listing.getDownloadCounter()
+            ? listing
+            : listing.toBuilder().downloadCounter(downloadCounter).build();
+    }
+
+    private static void addTerms(final Map<String, Float> weights, final String text, final float weight) {
+        tokenize(text).forEach(term -> weights.merge(term, weight, Float::sum));
+    }
+
+    /**
+     * Method for splitting text into lower case terms by any character except letters and digits.
+     *
+     * @param text source text, could be null
+     * @return terms in order of appearance
+     */
+    static List<String> tokenize(final String text) {
+        if (text == null) {
+            return List.of();
+        }
+
+        final var lowerCaseText = text.toLowerCase(Locale.ROOT);
+        final List<String> result = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= lowerCaseText.length(); i++) {
+            final boolean termChar = i < lowerCaseText.length() && Character.isLetterOrDigit(lowerCaseText.charAt(i));
+            if (termChar && start < 0) {
+                start = i;
+            } else if (!termChar && start >= 0) {
+                result.add(lowerCaseText.substring(start, i));
+                start = -1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Levenshtein distance check stopping as soon as every cell of a row exceeds max distance.
+     */
+    private static boolean isWithinDistance(final String source, final String target, final int maxDistance) {
+        int[] previous = new int[target.length() + 1];
+        int[] current = new int[target.length() + 1];
+        for (int j = 0; j <= target.length(); j++) {
+            previous[j] = j;
+        }
+
+        for (int i = 1; i <= source.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= target.length(); j++) {
+                final int cost = source.charAt(i - 1) == target.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxDistance) {
+                return false;
+            }
+
+            final int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[target.length()] <= maxDistance;
+    }
+
+    private record Document(ApplicationDao listing, Set<String> terms, Set<String> nameTerms) {
+    }
+
+    /**
+     * Mutable index guarded by the lock of the search index. Posting lists of a term are removed with its last
+     * application, so the dictionaries hold only matching terms.
+     */
+    private static final class Index {
+
+        private final Map<Integer, Document> documents = new HashMap<>();
+        private final NavigableMap<String, Map<Integer, Float>> terms = new TreeMap<>();
+        private final NavigableMap<String, Map<Integer, Float>> nameTerms = new TreeMap<>();
+
+        private void add(final ApplicationDao application) {
+            remove(application.getId());
+
+            final Map<String, Float> weights = new HashMap<>();
+            addTerms(weights, application.getName(), NAME_WEIGHT);
+            final Map<String, Float> nameWeights = new HashMap<>(weights);
+            addTerms(weights, application.getPackageName(), PACKAGE_NAME_WEIGHT);
+            addTerms(weights, application.getDescription(), DESCRIPTION_WEIGHT);
+
+            final var id = application.getId();
+            weights.forEach((term, weight) -> terms.computeIfAbsent(term, key -> new HashMap<>()).put(id, weight));
+            nameWeights.forEach((term, weight) ->
+                nameTerms.computeIfAbsent(term, key -> new HashMap<>()).put(id, weight));
+            documents.put(id, new Document(application, Set.copyOf(weights.keySet()),
+                Set.copyOf(nameWeights.keySet())));
+        }
+
+        private void remove(final int id) {
+            final var document = documents.remove(id);
+            if (document != null) {
+                document.terms().forEach(term -> removePosting(terms, term, id));
+                document.nameTerms().forEach(term -> removePosting(nameTerms, term, id));
+            }
+        }
+
+        private static void removePosting(final Map<String, Map<Integer, Float>> dictionary, final String term,
+                                          final int id) {
+            final var postings = dictionary.get(term);
+            if (postings != null) {
+                postings.remove(id);
+                if (postings.isEmpty()) {
+                    dictionary.remove(term);
+                }
+            }
+        }
+    }
+
+    private static final class Score {
+        private double relevance;
+        private int matchedTerms;
+
+        private void add(final double termScore) {
+            relevance += termScore;
+            matchedTerms++;
+        }
+    }
+}
@@ -1,103 +1,281 @@
 package com.alexandervov.service;
 
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.dao.ApplicationArchive;
+import com.alexandervov.dao.ApplicationCursor;
 import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.dao.ApplicationPage;
 import com.alexandervov.entity.Application;
+import com.alexandervov.entity.ApplicationVersion;
 import com.alexandervov.entity.Category;
+import com.alexandervov.metrics.DownloadMetrics;
+import com.alexandervov.repository.ApplicationDeltaRepository;
 import com.alexandervov.repository.ApplicationRepository;
+import com.alexandervov.repository.ApplicationVersionRepository;
+import com.alexandervov.storage.BlobStore;
+import io.micrometer.core.annotation.Timed;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Comparator;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.List;
-import java.util.Set;
-import java.util.TreeSet;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
 
-import static com.alexandervov.service.Constants.QUANTITY_MAX_POPULAR_APPS;
+import static com.alexandervov.service.Constants.APP_NAME_DUPLICATION_ERROR_MESSAGE;
 
+@Slf4j
 @Service
 @AllArgsConstructor
 public class ApplicationService {
 
+    private static final String CATALOG_QUERY_TIMER = "store.catalog.query";
+
     private final ApplicationRepository applicationRepository;
     private final CategoryService categoryService;
     private final ZipFileService zipFileService;
+    private final PopularApplicationsLeaderboard leaderboard;
+    private final ApplicationSearchIndex searchIndex;
+    private final DownloadCounterBuffer downloadCounterBuffer;
+    private final BlobStore blobStore;
+    private final StoreProperties storeProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ApplicationVersionRepository versionRepository;
+    private final ApplicationDeltaRepository deltaRepository;
+    private final PackageDeltaService packageDeltaService;
+    private final TransactionTemplate transactionTemplate;
+    private final DownloadMetrics downloadMetrics;
+    private final ApplicationDetailsCache detailsCache;
+    private final DownloadTimeSeries downloadTimeSeries;
 
     /**
      * Method for upload new application from zip file.
+     * Application, its first version and the caller's own records are saved in one transaction,
+     * in-memory catalog is updated after the commit.
      *
      * @param name        of application
      * @param categoryId  of application
      * @param description of application
-     * @param file        zip archive of application
-     * @throws IOException can be occurred during processing with zip file
+     * @param inputStream zip archive of application, stream isn't closed
+     * @param onSaved     called with saved application in the same transaction
+     * @return saved application
+     * @throws IOException              can be occurred during processing with zip file
+     * @throws IllegalArgumentException if application name isn't unique or category isn't exist
      */
-    public void uploadApplication(final String name, final Integer categoryId,
-                                  final String description, final MultipartFile file) throws IOException {
-        final var tempZipFile = zipFileService.prepareTempZipFile(file.getBytes(), file.getOriginalFilename());
-        final var application = zipFileService.initApplicationFromZip(tempZipFile, new Application.Builder()
+    public Application uploadApplication(final String name, final Integer categoryId, final String description,
+                                         final InputStream inputStream, final Consumer<Application> onSaved)
+        throws IOException, IllegalArgumentException {
+        if (isExistApplicationByName(name)) {
+            throw new IllegalArgumentException(APP_NAME_DUPLICATION_ERROR_MESSAGE);
+        }
+
+        final var category = categoryId == null ? null : categoryService.getCategory(categoryId);
+        if (category == null) {
+            throw new IllegalArgumentException("Upload error: Wrong category id " + categoryId);
+        }
+
+        final var application = zipFileService.initApplicationFromZip(inputStream, new Application.Builder()
             .name(name)
-            .category(categoryService.getCategory(categoryId))
+            .category(category)
             .description(description)
             .build());
 
-        applicationRepository.save(application);
-        zipFileService.removeTempZipFile(file.getOriginalFilename());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                applicationRepository.save(application);
+                versionRepository.save(ApplicationVersion.of(application));
+                onSaved.accept(application);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // name is taken by a concurrent upload after the check above
+            if (isExistApplicationByName(name)) {
+                throw new IllegalArgumentException(APP_NAME_DUPLICATION_ERROR_MESSAGE, e);
+            }
+            throw e;
+        }
+        afterCommit(application, () -> {
+            categoryService.registerApplication(categoryId);
+            detailsCache.invalidate(application.getId());
+            leaderboard.register(application.getId(), application.getName(), application.getDownloadCounter());
+            searchIndex.index(toListing(application));
+            eventPublisher.publishEvent(CatalogChangedEvent.uploaded(application.getId()));
+        });
+        return application;
     }
 
     /**
-     * Get all applications dao.
+     * Method for upload new version of existing application from zip file.
+     * The new version becomes the latest one, delta from the previous version is computed in background.
+     * Version and the caller's own records are saved in one transaction.
      *
-     * @return all applications dao
+     * @param name        of application
+     * @param description new description of application, null to keep the current one
+     * @param inputStream zip archive of application, stream isn't closed
+     * @param onSaved     called with saved application in the same transaction
+     * @return saved application
+     * @throws IOException              can be occurred during processing with zip file
+     * @throws IllegalArgumentException if application isn't exist, package name differs
+     *                                  or package is equal to the latest version
      */
-    public List<ApplicationDao> getAllApplicationsDao() {
-        return prepareApplicationsDao(applicationRepository.findAll());
+    public Application uploadApplicationVersion(final String name, final String description,
+                                                final InputStream inputStream, final Consumer<Application> onSaved)
+        throws IOException, IllegalArgumentException {
+        final var application = applicationRepository.findApplicationByName(name).orElseThrow(() ->
+            new IllegalArgumentException("Upload error: Application " + name + " doesn't exist"));
+        final var ingested = zipFileService.initApplicationFromZip(inputStream, new Application());
+        if (application.getPackageName() != null
+            && !application.getPackageName().equals(ingested.getPackageName())) {
+            throw new IllegalArgumentException("Upload error: Package name " + ingested.getPackageName()
+                + " differs from " + application.getPackageName());
+        }
+        if (ingested.getPackageHash().equals(application.getPackageHash())) {
+            throw new IllegalArgumentException("Upload error: Package is equal to the latest version");
+        }
+
+        final int latestVersion = application.getLatestVersion();
+        final var target = transactionTemplate.execute(status -> {
+            // applications uploaded before versioning have no rows, their current package is the latest version
+            if (versionRepository.findByApplicationIdAndVersion(application.getId(), latestVersion).isEmpty()) {
+                versionRepository.save(ApplicationVersion.of(application));
+            }
+
+            application.setLatestVersion(latestVersion + 1);
+            application.setPackageName(ingested.getPackageName());
+            application.setPictureName128(ingested.getPictureName128());
+            application.setPictureName512(ingested.getPictureName512());
+            application.setPicture128Hash(ingested.getPicture128Hash());
+            application.setPicture512Hash(ingested.getPicture512Hash());
+            application.setPackageHash(ingested.getPackageHash());
+            application.setPackageSize(ingested.getPackageSize());
+            if (description != null && !description.isBlank()) {
+                application.setDescription(description);
+            }
+            if (applicationRepository.updateLatestVersion(application, latestVersion) == 0) {
+                throw new IllegalArgumentException("Upload error: Another version of " + name + " is uploaded");
+            }
+            final var version = versionRepository.save(ApplicationVersion.of(application));
+            onSaved.accept(application);
+            return version;
+        });
+
+        afterCommit(application, () -> {
+            detailsCache.invalidate(application.getId());
+            leaderboard.refreshListing(application.getId());
+            searchIndex.index(toListing(application));
+            eventPublisher.publishEvent(CatalogChangedEvent.updated(application.getId()));
+            packageDeltaService.schedule(target);
+        });
+        return application;
     }
 
     /**
-     * Get DESC sorted top applications.
+     * Method for updating in-memory catalog after application is committed. The upload is already done,
+     * so a failure is logged instead of being reported as a failed upload, the catalog is corrected
+     * by the next reload or synchronization.
+     */
+    private void afterCommit(final Application application, final Runnable update) {
+        try {
+            update.run();
+        } catch (RuntimeException e) {
+            log.error("Application {} is saved, but in-memory catalog isn't updated", application.getName(), e);
+        }
+    }
+
+    /**
+     * Full text search of applications by name, package name and description.
      *
-     * @return list applications dao
+     * @param query text typed by user
+     * @return applications ordered by relevance, quantity is limited by store.search.max-results
      */
-    public Set<ApplicationDao> getSortedTopFiveApps() {
-        final var result = new TreeSet<>(Comparator.comparingInt(ApplicationDao::getDownloadCounter)
-            .thenComparing(ApplicationDao::getName).reversed());
-        final var tempList = getAllApplicationsDao();
+    @Timed(CATALOG_QUERY_TIMER)
+    public List<ApplicationDao> searchApplications(final String query) {
+        return searchIndex.search(query, storeProperties.getSearch().getMaxResults());
+    }
 
-        if (tempList.size() <= QUANTITY_MAX_POPULAR_APPS) {
-            result.addAll(tempList);
-        } else {
-            result.addAll(tempList.subList(0, QUANTITY_MAX_POPULAR_APPS));
-        }
+    /**
+     * Typeahead of applications by name prefix.
+     *
+     * @param query text typed by user
+     * @return applications ordered by relevance, quantity is limited by store.search.max-suggestions
+     */
+    @Timed(CATALOG_QUERY_TIMER)
+    public List<ApplicationDao> suggestApplications(final String query) {
+        return searchIndex.suggest(query, storeProperties.getSearch().getMaxSuggestions());
+    }
 
-        return result;
+    /**
+     * Get DESC sorted top applications, quantity is configured by store.popular-apps-limit.
+     * Served from in-memory leaderboard without db access.
+     *
+     * @return list applications dao
+     */
+    @Timed(CATALOG_QUERY_TIMER)
+    public List<ApplicationDao> getSortedTopApps() {
+        return leaderboard.getTop();
     }
 
     /**
-     * Get all application with the same category id.
+     * Get page of applications ordered by download counter, optionally limited by category.
+     * Pages are selected by keyset (download counter, id) instead of offset,
+     * so cost of a page doesn't depend on its position. Read-only transaction goes to a read replica when they are
+     * configured.
      *
-     * @param id category id
-     * @return list of applications dao
+     * @param categoryId category id, null for all applications
+     * @param cursor     cursor of requested page given with previous page, null for the first page
+     * @param size       quantity of applications, null for store.catalog.page-size
+     * @return page of applications dao
+     * @throws IllegalArgumentException if cursor is malformed
      */
-    public List<ApplicationDao> getApplicationByCategory(final int id) {
-        return prepareApplicationsDao(applicationRepository.findApplicationsByCategoryId(id));
+    @Timed(CATALOG_QUERY_TIMER)
+    @Transactional(readOnly = true)
+    public ApplicationPage getApplicationsPage(final Integer categoryId, final String cursor,
+                                               final Integer size) throws IllegalArgumentException {
+        final var catalog = storeProperties.getCatalog();
+        final int pageSize = Math.max(1, Math.min(Objects.requireNonNullElse(size, catalog.getPageSize()),
+            catalog.getMaxPageSize()));
+        // one extra row tells whether next page exists
+        final var pageable = PageRequest.ofSize(pageSize + 1);
+
+        final List<ApplicationDao> applications;
+        if (cursor == null || cursor.isEmpty()) {
+            applications = categoryId == null
+                ? applicationRepository.findListings(pageable)
+                : applicationRepository.findListingsByCategoryId(categoryId, pageable);
+        } else {
+            final var after = ApplicationCursor.decode(cursor);
+            applications = categoryId == null
+                ? applicationRepository.findListingsAfter(after.downloadCounter(), after.id(), pageable)
+                : applicationRepository.findListingsByCategoryIdAfter(categoryId,
+                    after.downloadCounter(), after.id(), pageable);
+        }
+
+        if (applications.size() <= pageSize) {
+            return new ApplicationPage(applications, null);
+        }
+
+        final var items = applications.subList(0, pageSize);
+        return new ApplicationPage(List.copyOf(items), ApplicationCursor.after(items.get(pageSize - 1)).encode());
     }
 
     /**
      * Get list of categories by existing applications.
+     * Served from category cache without db access.
      *
-     * @return categories list
+     * @return categories list ordered by id
      */
-    public Set<Category> getCategoriesByExistingApplications() {
-        final var applications = applicationRepository.findAll();
-        return StreamSupport.stream(applications.spliterator(), false)
-            .map(Application::getCategory)
-            .collect(Collectors.toSet());
+    @Timed(CATALOG_QUERY_TIMER)
+    public List<Category> getCategoriesByExistingApplications() {
+        return categoryService.getCategoriesWithApplications();
     }
 
     /**
@@ -117,8 +295,20 @@ public class ApplicationService {
      * @param id application dao
      * @return application dao
      */
+    @Timed(CATALOG_QUERY_TIMER)
     public ApplicationDao getApplicationDaoById(final int id) {
-        return prepareApplicationDao(getApplicationById(id));
+        return detailsCache.getDetails(id).orElseThrow(() ->
+            new IllegalArgumentException("Application with id: " + id + " doesn't exist"));
+    }
+
+    /**
+     * Get application by name.
+     *
+     * @param name application
+     * @return application, empty if it isn't exist
+     */
+    public Optional<Application> findApplicationByName(final String name) {
+        return applicationRepository.findApplicationByName(name);
     }
 
     /**
@@ -128,42 +318,93 @@ public class ApplicationService {
      * @return boolean value if found an application than return true value
      */
     public boolean isExistApplicationByName(final String name) {
-        final var optionalApplication = applicationRepository.findApplicationByName(name);
-        return optionalApplication.isPresent();
+        return applicationRepository.existsByName(name);
     }
 
     /**
-     * Method for getting from db application by name.
+     * Method for getting package metadata of application by name.
      *
      * @param name application name
-     * @return application instance
-     */
-    @Transactional
-    public Application downloadApplication(String name) {
-        final var application = applicationRepository.findApplicationByName(name).orElseThrow();
-        var downloadCounter = application.getDownloadCounter();
-        application.setDownloadCounter(++downloadCounter);
-        applicationRepository.save(application);
-        return application;
+     * @return package metadata
+     */
+    @Timed(CATALOG_QUERY_TIMER)
+    public ApplicationArchive getApplicationArchive(final String name) {
+        return applicationRepository.findArchiveByName(name).orElseThrow();
+    }
+
+    /**
+     * Method for getting delta metadata from installed version to the next one.
+     *
+     * @param name        application name
+     * @param fromVersion version installed by client
+     * @return delta metadata, empty if delta isn't computed yet or isn't smaller than the package
+     */
+    @Timed(CATALOG_QUERY_TIMER)
+    public Optional<ApplicationArchive> getApplicationDelta(final String name, final int fromVersion) {
+        return deltaRepository.findArchiveByNameAndFromVersion(name, fromVersion);
+    }
+
+    /**
+     * Method for getting local file of application package, available only for filesystem blob store.
+     *
+     * @param archive package metadata
+     * @return path of package file
+     */
+    public Optional<Path> getApplicationArchiveFile(final ApplicationArchive archive) {
+        return blobStore.localPath(archive.getPackageHash());
     }
 
-    private List<ApplicationDao> prepareApplicationsDao(final Iterable<Application> applications) {
-        List<ApplicationDao> result = new ArrayList<>();
-        applications.forEach(app -> result.add(prepareApplicationDao(app)));
+    /**
+     * Method for streaming application package from blob store, only requested range is read.
+     *
+     * @param archive      package metadata
+     * @param offset       first byte position
+     * @param length       quantity of bytes
+     * @param outputStream target stream
+     * @throws IOException could be occurred during reading package or writing stream
+     */
+    public void downloadApplication(final ApplicationArchive archive, final long offset, final long length,
+                                    final OutputStream outputStream) throws IOException {
+        downloadMetrics.transfer(DownloadMetrics.PACKAGE, outputStream,
+            out -> blobStore.write(archive.getPackageHash(), offset, length, out));
+        registerDownload(archive, offset);
+    }
 
-        return result;
+    /**
+     * Method for streaming package delta from blob store, deltas aren't counted as downloads.
+     *
+     * @param delta        delta metadata
+     * @param offset       first byte position
+     * @param length       quantity of bytes
+     * @param outputStream target stream
+     * @throws IOException could be occurred during reading delta or writing stream
+     */
+    public void downloadDelta(final ApplicationArchive delta, final long offset, final long length,
+                              final OutputStream outputStream) throws IOException {
+        downloadMetrics.transfer(DownloadMetrics.DELTA, outputStream,
+            out -> blobStore.write(delta.getPackageHash(), offset, length, out));
+    }
+
+    /**
+     * Method for registration application download.
+     * Download counter is buffered and written to db later by {@link DownloadCounterBuffer},
+     * download is also counted in minute bucket of {@link DownloadTimeSeries} for trending applications,
+     * resumed downloads (range not started from the first byte) aren't counted.
+     *
+     * @param archive package metadata
+     * @param offset  first byte position of transferred range
+     */
+    public void registerDownload(final ApplicationArchive archive, final long offset) {
+        if (offset == 0) {
+            downloadCounterBuffer.increment(archive.getApplicationId());
+            downloadTimeSeries.record(archive.getApplicationId());
+            leaderboard.recordDownload(archive.getApplicationId());
+        }
     }
 
-    private ApplicationDao prepareApplicationDao(final Application application) {
-        return ApplicationDao.builder()
-            .id(application.getId())
-            .name(application.getName())
-            .description(application.getDescription())
-            .packageName(application.getPackageName())
-            .picture128Base64(new String(application.getPicture128Base64Bytes()))
-            .picture512Base64(new String(application.getPicture512Base64Bytes()))
-            .category(categoryService.getCategory(application.getCategory().getId()))
-            .downloadCounter(application.getDownloadCounter())
-            .build();
+    private ApplicationDao toListing(final Application application) {
+        return new ApplicationDao(application.getId(), application.getName(), application.getDescription(),
+            application.getPackageName(), application.getPicture128Hash(), application.getCategory(),
+            application.getDownloadCounter());
     }
 }
@@ -0,0 +1,312 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.entity.Application;
+import com.alexandervov.repository.ApplicationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Bulk import of application archives into a fresh or running store.
+ * Archives are parsed in parallel on a fork-join pool, parsed applications are inserted in batches,
+ * one transaction per batch. A batch rejected by db is inserted row by row, so only the offending rows are lost.
+ * Application ids are allocated from sequence in blocks, so Hibernate groups inserts into JDBC batches.
+ * Imports run one by one on a background thread, catalog caches are reloaded after every import.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkImportService {
+
+    private static final String ARCHIVE_SUFFIX = ".zip";
+    private static final String MANIFEST_SEPARATOR = "\t";
+    private static final String MANIFEST_COMMENT = "#";
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final ApplicationRepository applicationRepository;
+    private final ZipFileService zipFileService;
+    private final CategoryService categoryService;
+    private final PopularApplicationsLeaderboard leaderboard;
+    private final ApplicationSearchIndex searchIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StoreProperties storeProperties;
+    private ExecutorService importExecutor;
+
+    @PostConstruct
+    public void init() {
+        importExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("import-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        importExecutor.shutdownNow();
+    }
+
+    /**
+     * Method for importing store.bulk-import.source on startup, runs after db initialization.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void importOnStartup() {
+        final var source = storeProperties.getBulkImport().getSource();
+        if (source != null) {
+            submit(() -> importApplications(readSource(source)));
+        }
+    }
+
+    /**
+     * Method for running import in background, catalog caches are reloaded after the import.
+     *
+     * @param task import
+     * @return completion of the import
+     */
+    public CompletableFuture<Void> submit(final ImportTask task) {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                task.run();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                refreshCatalog();
+            }
+        }, importExecutor).whenComplete((result, e) -> {
+            if (e != null) {
+                log.error("Import is failed", e);
+            }
+        });
+    }
+
+    /**
+     * Method for reading archives of directory or manifest.
+     * Every zip archive of directory is imported into store.bulk-import.default-category,
+     * its file name without extension is used as name and description.
+     * Every line of manifest has tab separated archive path relative to the manifest, name, category name,
+     * description and optional download counter, lines starting with # are skipped.
+     *
+     * @param source directory or manifest
+     * @return import items
+     * @throws IOException could be occurred during reading source
+     */
+    public List<Item> readSource(final Path source) throws IOException {
+        if (Files.isDirectory(source)) {
+            final var category = storeProperties.getBulkImport().getDefaultCategory();
+            try (Stream<Path> files = Files.list(source)) {
+                return files
+                    .filter(file -> file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(ARCHIVE_SUFFIX))
+                    .sorted()
+                    .map(file -> {
+                        final var fileName = file.getFileName().toString();
+                        final var name = fileName.substring(0, fileName.length() - ARCHIVE_SUFFIX.length());
+                        return new Item(name, category, name, 0, new FileSystemResource(file));
+                    })
+                    .toList();
+            }
+        }
+
+        final var directory = source.toAbsolutePath().getParent();
+        final List<Item> items = new ArrayList<>();
+        final var lines = Files.readAllLines(source, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            final var line = lines.get(i);
+            if (line.isBlank() || line.startsWith(MANIFEST_COMMENT)) {
+                continue;
+            }
+
+            final var columns = line.split(MANIFEST_SEPARATOR);
+            if (columns.length < 4) {
+                log.warn("Line {} of {} has {} columns instead of 4 or 5, it is skipped", i + 1, source,
+                    columns.length);
+                continue;
+            }
+            final int downloadCounter;
+            try {
+                downloadCounter = columns.length > 4 ? Integer.parseInt(columns[4].trim()) : 0;
+            } catch (NumberFormatException e) {
+                log.warn("Line {} of {} has wrong download counter, it is skipped", i + 1, source);
+                continue;
+            }
+            items.add(new Item(columns[1].trim(), columns[2].trim(), columns[3].trim(), downloadCounter,
+                new FileSystemResource(directory.resolve(columns[0].trim()))));
+        }
+        return items;
+    }
+
+    /**
+     * Method for importing applications on the current thread.
+     * Items with names of existing or previously listed applications are skipped, broken archives
+     * and rows rejected by db are logged. Names of existing and of rejected items are reported separately
+     * after every batch.
+     *
+     * @param items import items
+     * @return ids of imported applications
+     */
+    public Set<Integer> importApplications(final List<Item> items) {
+        final Map<String, Item> uniqueItems = new LinkedHashMap<>();
+        items.forEach(item -> uniqueItems.putIfAbsent(item.name(), item));
+        final List<Item> queue = new ArrayList<>(uniqueItems.values());
+
+        final var bulkImport = storeProperties.getBulkImport();
+        final int batchSize = Math.max(1, bulkImport.getBatchSize());
+        final Set<Integer> imported = new HashSet<>();
+        int existing = 0;
+        int rejected = 0;
+        final long start = System.nanoTime();
+
+        final var pool = new ForkJoinPool(Math.max(1, bulkImport.getParallelism()));
+        try {
+            for (int from = 0; from < queue.size(); from += batchSize) {
+                final var batch = queue.subList(from, Math.min(from + batchSize, queue.size()));
+                final var existingNames = applicationRepository.findExistingNames(
+                    batch.stream().map(Item::name).toList());
+                final List<Application> applications = pool.submit(() -> batch.parallelStream()
+                    .filter(item -> !existingNames.contains(item.name()))
+                    .map(this::parse)
+                    .filter(Objects::nonNull)
+                    .toList()).join();
+
+                final Set<String> savedNames = new HashSet<>();
+                for (Application application : save(applications)) {
+                    imported.add(application.getId());
+                    savedNames.add(application.getName());
+                }
+                final List<String> existingBatchNames = new ArrayList<>();
+                final List<String> rejectedNames = new ArrayList<>();
+                for (Item item : batch) {
+                    if (existingNames.contains(item.name())) {
+                        existingBatchNames.add(item.name());
+                    } else if (!savedNames.contains(item.name())) {
+                        rejectedNames.add(item.name());
+                    }
+                }
+                existing += existingBatchNames.size();
+                rejected += rejectedNames.size();
+                if (!existingBatchNames.isEmpty()) {
+                    log.warn("{} applications aren't imported, they already exist: {}", existingBatchNames.size(),
+                        existingBatchNames);
+                }
+                if (!rejectedNames.isEmpty()) {
+                    log.warn("{} applications aren't imported, their archives are broken or db rejected them: {}",
+                        rejectedNames.size(), rejectedNames);
+                }
+
+                final double seconds = Math.max(System.nanoTime() - start, 1) / 1e9;
+                log.info("Imported {} of {} applications, {} already exist, {} rejected, {} applications/s",
+                    imported.size(), queue.size(), existing, rejected,
+                    String.format(Locale.ROOT, "%.1f", imported.size() / seconds));
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return imported;
+    }
+
+    /**
+     * Method for inserting batch of applications in one transaction.
+     * If db rejects the batch, e.g. a name is taken by a concurrent upload, applications are inserted
+     * one by one and rejected ones are logged.
+     *
+     * @return saved applications
+     */
+    private List<Application> save(final List<Application> applications) {
+        if (applications.isEmpty()) {
+            return applications;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> applicationRepository.saveAll(applications));
+            return applications;
+        } catch (DataIntegrityViolationException e) {
+            log.warn("Batch of {} applications is rejected, applications are inserted one by one: {}",
+                applications.size(), e.getMessage());
+        }
+
+        final List<Application> saved = new ArrayList<>();
+        for (Application application : applications) {
+            // id allocated by the rolled back batch isn't used, a new one is allocated
+            application.setId(null);
+            try {
+                transactionTemplate.executeWithoutResult(status -> applicationRepository.save(application));
+                saved.add(application);
+            } catch (DataIntegrityViolationException e) {
+                log.warn("Application {} is rejected: {}", application.getName(), e.getMessage());
+            }
+        }
+        return saved;
+    }
+
+    private Application parse(final Item item) {
+        try (InputStream inputStream = new BufferedInputStream(item.archive().getInputStream(), READ_BUFFER_SIZE)) {
+            return zipFileService.initApplicationFromZip(inputStream, new Application.Builder()
+                .name(item.name())
+                .category(categoryService.getCategory(item.category()))
+                .description(item.description())
+                .downloadCounter(item.downloadCounter())
+                .build());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Archive {} of application {} isn't imported", item.archive().getDescription(), item.name(), e);
+            return null;
+        }
+    }
+
+    private void refreshCatalog() {
+        categoryService.refresh();
+        leaderboard.reload();
+        searchIndex.reload();
+        eventPublisher.publishEvent(new CatalogChangedEvent(Set.of(), true));
+    }
+
+    /**
+     * Archive of application with its catalog data.
+     *
+     * @param name            application name
+     * @param category        category name
+     * @param description     application description
+     * @param downloadCounter initial download counter
+     * @param archive         zip archive
+     */
+    public record Item(String name, String category, String description, int downloadCounter, Resource archive) {
+    }
+
+    /**
+     * Import running in background.
+     */
+    @FunctionalInterface
+    public interface ImportTask {
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,37 @@
+package com.alexandervov.service;
+
+import java.util.Set;
+
+/**
+ * Event published when catalog data shown on pages is changed.
+ *
+ * @param applicationIds applications whose data is changed
+ * @param structural     true if applications are added or removed, so every catalog view could be changed,
+ *                       false if only download counters or versions of the applications are changed
+ */
+public record CatalogChangedEvent(Set<Integer> applicationIds, boolean structural) {
+
+    /**
+     * @param id uploaded application
+     * @return event of new application
+     */
+    public static CatalogChangedEvent uploaded(final int id) {
+        return new CatalogChangedEvent(Set.of(id), true);
+    }
+
+    /**
+     * @param id application with uploaded new version
+     * @return event of changed application, its listing stays in place
+     */
+    public static CatalogChangedEvent updated(final int id) {
+        return new CatalogChangedEvent(Set.of(id), false);
+    }
+
+    /**
+     * @param ids applications with flushed download counters
+     * @return event of changed download counters
+     */
+    public static CatalogChangedEvent countersFlushed(final Set<Integer> ids) {
+        return new CatalogChangedEvent(Set.copyOf(ids), false);
+    }
+}
@@ -2,31 +2,59 @@ package com.alexandervov.service;
 
 import com.alexandervov.entity.Category;
 import com.alexandervov.repository.CategoryRepository;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+/**
+ * Cache of categories. Readers use immutable snapshot indexed by id and by name without locking,
+ * snapshot is replaced as a whole on refresh.
+ * Quantities of applications per category are loaded on refresh and then maintained on upload,
+ * so navigation by used categories doesn't touch db. They are reloaded after every download counters compaction
+ * to include uploads on other nodes.
+ */
+@Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
-    private final Map<Integer, Category> categoriesMap = new HashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private volatile Snapshot snapshot;
+    private volatile Map<Integer, AtomicLong> applicationsQuantities = new ConcurrentHashMap<>();
+
+    /**
+     * Method for warming cache up on startup, after db initialization.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
 
     /**
      * Method for getting category instance by id.
      * @param id numeric identifier
-     * @return category instance
+     * @return category instance or null if category isn't exist
      */
     public Category getCategory(int id) {
-        if (categoriesMap.isEmpty()) {
-            initCategoriesMap();
-        }
-
-        return categoriesMap.get(id);
+        return getSnapshot().byId().get(id);
     }
 
     /**
@@ -35,24 +63,108 @@ public class CategoryService {
      * @return category instance
      */
     public Category getCategory(String name) throws IllegalArgumentException {
-        if (categoriesMap.isEmpty()) {
-            initCategoriesMap();
+        final var category = getSnapshot().byName().get(name);
+        if (category == null) {
+            throw new IllegalArgumentException("Wrong category name: " + name);
         }
-
-        return categoriesMap.values().stream()
-            .filter(c -> c.getName().equals(name))
-            .findAny().orElseThrow(() -> new IllegalArgumentException("Wrong category name: " + name));
+        return category;
     }
 
     /**
      * Method for getting all categories.
-     * @return all categories
+     * @return all categories ordered by id
      */
     public Collection<Category> getAllCategories() {
-        return categoriesMap.values();
+        return getSnapshot().all();
+    }
+
+    /**
+     * Method for getting categories having at least one application.
+     * @return categories ordered by id
+     */
+    public List<Category> getCategoriesWithApplications() {
+        final var quantities = applicationsQuantities;
+        return getSnapshot().all().stream()
+            .filter(c -> {
+                final var quantity = quantities.get(c.getId());
+                return quantity != null && quantity.get() > 0;
+            })
+            .toList();
+    }
+
+    /**
+     * Method for counting new application in its category.
+     * Runs under the lock of quantities reload, so the increment isn't lost by a concurrent reload.
+     * An application counted by both is counted twice until the next reload, which doesn't change
+     * whether its category is used.
+     * @param categoryId category of saved application
+     */
+    public synchronized void registerApplication(final Integer categoryId) {
+        if (categoryId != null) {
+            applicationsQuantities.computeIfAbsent(categoryId, id -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Method for reloading categories from db, should be called after categories are changed.
+     */
+    public synchronized void refresh() {
+        final List<Category> categories = new ArrayList<>();
+        categoryRepository.findAll().forEach(categories::add);
+        categories.sort(Comparator.comparing(Category::getId));
+
+        snapshot = new Snapshot(
+            categories.stream().collect(Collectors.toUnmodifiableMap(Category::getId, Function.identity())),
+            categories.stream().collect(Collectors.toUnmodifiableMap(Category::getName, Function.identity())),
+            List.copyOf(categories));
+
+        refreshApplicationsQuantities();
+        log.info("Category cache is refreshed with {} categories", categories.size());
+    }
+
+    /**
+     * Method for reloading quantities of applications per category, runs after every download counters compaction,
+     * so applications uploaded on other nodes are counted.
+     */
+    @EventListener(CountersCompactedEvent.class)
+    public synchronized void refreshApplicationsQuantities() {
+        final Map<Integer, AtomicLong> quantities = new ConcurrentHashMap<>();
+        categoryRepository.countApplicationsByCategory()
+            .forEach(u -> quantities.put(u.getCategoryId(), new AtomicLong(u.getApplicationsQuantity())));
+        applicationsQuantities = quantities;
+    }
+
+    /**
+     * @return quantity of lookups served by cached categories
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return quantity of lookups which loaded categories from db
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    private Snapshot getSnapshot() {
+        var current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null) {
+                    misses.increment();
+                    refresh();
+                } else {
+                    hits.increment();
+                }
+                return snapshot;
+            }
+        }
+        hits.increment();
+        return current;
     }
 
-    private void initCategoriesMap() {
-        categoryRepository.findAll().forEach(c -> categoriesMap.put(c.getId(), c));
+    private record Snapshot(Map<Integer, Category> byId, Map<String, Category> byName, List<Category> all) {
     }
 }
@@ -0,0 +1,10 @@
+package com.alexandervov.service;
+
+/**
+ * Event published on every node after each compaction run. Download counters in db then include events
+ * compacted by any node, so node-local copies of counters and catalog are synchronized with db.
+ *
+ * @param events quantity of events compacted by this run, events of other nodes could be compacted as well
+ */
+public record CountersCompactedEvent(long events) {
+}
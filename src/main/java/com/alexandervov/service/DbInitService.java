@@ -1,52 +1,63 @@
 package com.alexandervov.service;
 
-import com.alexandervov.entity.Application;
 import com.alexandervov.entity.Category;
 import com.alexandervov.repository.ApplicationRepository;
 import com.alexandervov.repository.CategoryRepository;
-import lombok.AllArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.zip.ZipFile;
+import java.util.concurrent.CompletableFuture;
 
 @Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class DbInitService {
 
-    private final CategoryRepository categoryRepository;
-    private final ApplicationRepository applicationRepository;
-    private final ZipFileService zipFileService;
+    protected final CategoryRepository categoryRepository;
+    protected final ApplicationRepository applicationRepository;
+    protected final ZipFileService zipFileService;
+    protected final BulkImportService bulkImportService;
+    private volatile CompletableFuture<Void> seeding = CompletableFuture.completedFuture(null);
 
     private final static String PREFIX_PATH = "init-data/";
     private final static String GOOGLE_MAPS_APP_ARCHIVE_PATH = PREFIX_PATH + "GoogleMaps.zip";
-    private final static String GOOGLE_MAPS_APP_ARCHIVE_COPY = "GoogleMapsCopy.zip";
     private final static String WAZE_APP_ARCHIVE_PATH = PREFIX_PATH + "Waze.zip";
-    private final static String WAZE_APP_ARCHIVE_COPY = "WazeCopy.zip";
     private final static String SOUNDCLOUD_APP_ARCHIVE_PATH = PREFIX_PATH + "SoundCloud.zip";
-    private final static String SOUNDCLOUD_APP_ARCHIVE_COPY = "SoundCloudCopy.zip";
     private final static String UNSPLASH_APP_ARCHIVE_PATH = PREFIX_PATH + "Unsplash.zip";
-    private final static String UNSPLASH_APP_ARCHIVE_COPY = "Unsplash.zip";
 
+    /**
+     * Method for seeding empty db. Categories are created at once,
+     * applications are seeded in background by {@link BulkImportService}, so startup isn't blocked.
+     */
+    @Order(Ordered.HIGHEST_PRECEDENCE)
     @EventListener(ApplicationReadyEvent.class)
-    public void initDb() throws IOException {
+    public void initDb() {
         if (categoryRepository.count() <= 0) {
             initCategories();
         }
 
         if (applicationRepository.count() <= 0) {
-            initApplications();
+            seeding = bulkImportService.submit(this::initApplications);
         }
     }
 
-    private void initCategories() {
+    /**
+     * @return completion of applications seeding, completed if db isn't empty
+     */
+    public CompletableFuture<Void> getSeeding() {
+        return seeding;
+    }
+
+    protected void initCategories() {
         List<Category> categories = new ArrayList<>();
         categories.add(new Category("Games"));
         categories.add(new Category("Tools"));
@@ -59,57 +70,15 @@ public class DbInitService {
         categoryRepository.saveAll(categories);
     }
 
-    private void initApplications() throws IOException {
-        List<Application> applications = new ArrayList<>();
-
-        var archCopy = getPathAndZipFileOfCopy(GOOGLE_MAPS_APP_ARCHIVE_PATH, GOOGLE_MAPS_APP_ARCHIVE_COPY);
-        applications.add(zipFileService.initApplicationFromZip(archCopy,
-            new Application.Builder()
-                .name("Google Maps")
-                .category(categoryRepository.findByName("Navigations"))
-                .description("Google Global Navigation App")
-                .downloadCounter(290)
-                .build())
-        );
-        zipFileService.removeTempZipFile(GOOGLE_MAPS_APP_ARCHIVE_COPY);
-
-        archCopy = getPathAndZipFileOfCopy(WAZE_APP_ARCHIVE_PATH, WAZE_APP_ARCHIVE_COPY);
-        applications.add(zipFileService.initApplicationFromZip(archCopy,
-            new Application.Builder()
-                .name("Waze")
-                .category(categoryRepository.findByName("Navigations"))
-                .description("Global Navigation App")
-                .downloadCounter(295)
-                .build()));
-        zipFileService.removeTempZipFile(WAZE_APP_ARCHIVE_COPY);
-
-        archCopy = getPathAndZipFileOfCopy(SOUNDCLOUD_APP_ARCHIVE_PATH, SOUNDCLOUD_APP_ARCHIVE_COPY);
-        applications.add(zipFileService.initApplicationFromZip(archCopy,
-            new Application.Builder()
-                .name("SoundCloud")
-                .category(categoryRepository.findByName("Multimedia"))
-                .description("Musical App")
-                .downloadCounter(310)
-                .build()));
-        archCopy.close();
-        zipFileService.removeTempZipFile(SOUNDCLOUD_APP_ARCHIVE_COPY);
-
-        archCopy = getPathAndZipFileOfCopy(UNSPLASH_APP_ARCHIVE_PATH, UNSPLASH_APP_ARCHIVE_COPY);
-        applications.add(zipFileService.initApplicationFromZip(archCopy,
-            new Application.Builder()
-                .name("Unsplash")
-                .category(categoryRepository.findByName("Images"))
-                .description("App for getting nice images")
-                .downloadCounter(300)
-                .build()));
-        archCopy.close();
-        zipFileService.removeTempZipFile(UNSPLASH_APP_ARCHIVE_COPY);
-
-        applicationRepository.saveAll(applications);
-    }
-
-    public ZipFile getPathAndZipFileOfCopy(String originalZipPath, String fileNameCopy) throws IOException {
-        return zipFileService.prepareTempZipFile(new ClassPathResource(originalZipPath)
-            .getInputStream().readAllBytes(), fileNameCopy);
+    protected void initApplications() throws IOException {
+        bulkImportService.importApplications(List.of(
+            new BulkImportService.Item("Google Maps", "Navigations", "Google Global Navigation App", 290,
+                new ClassPathResource(GOOGLE_MAPS_APP_ARCHIVE_PATH)),
+            new BulkImportService.Item("Waze", "Navigations", "Global Navigation App", 295,
+                new ClassPathResource(WAZE_APP_ARCHIVE_PATH)),
+            new BulkImportService.Item("SoundCloud", "Multimedia", "Musical App", 310,
+                new ClassPathResource(SOUNDCLOUD_APP_ARCHIVE_PATH)),
+            new BulkImportService.Item("Unsplash", "Images", "App for getting nice images", 300,
+                new ClassPathResource(UNSPLASH_APP_ARCHIVE_PATH))));
     }
 }
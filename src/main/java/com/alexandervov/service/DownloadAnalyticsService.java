@@ -0,0 +1,269 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.dao.TrendingApplication;
+import com.alexandervov.repository.ApplicationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Rollups of download time series and trending applications.
+ * Every minute downloads of this node are drained into a minute bucket of {@link DownloadTimeSeries}.
+ * When an hour is over, its minute buckets are added to download_hourly, and the day of the hour is recomputed
+ * in download_daily from hourly rows of all nodes. Rollup transaction starts by locking the single download_rollup
+ * row, so nodes roll up one at a time and rows are inserted without conflicts.
+ * Downloads of an hour are taken out of the minute ring when the hour is over and kept pending until the rollup
+ * transaction succeeds, it is retried every minute, so a failed rollup doesn't lose the hour when its ring slots
+ * are reused. At most {@value #MAX_PENDING_HOURS} hours are kept while db is unavailable.
+ * Trending applications of a window are summed from daily rows of whole days, hourly rows of the rest,
+ * pending hours and minute buckets of the current hour kept in memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DownloadAnalyticsService {
+
+    private static final long MINUTES_PER_HOUR = 60;
+    private static final long SECONDS_PER_MINUTE = 60;
+    // days are recomputed from hourly rows, so they are kept at least until the day is over
+    private static final Duration MIN_HOURLY_RETENTION = Duration.ofDays(2);
+    private static final int MAX_PENDING_HOURS = 24;
+
+    private static final String LOCK_SQL = "UPDATE download_rollup SET rolled_up_at = ? WHERE id = 1";
+    private static final String ADD_HOURLY_SQL =
+        "UPDATE download_hourly SET downloads = downloads + ? WHERE application_id = ? AND bucket_start = ?";
+    private static final String INSERT_HOURLY_SQL =
+        "INSERT INTO download_hourly (downloads, application_id, bucket_start) VALUES (?, ?, ?)";
+    private static final String DELETE_DAILY_SQL = "DELETE FROM download_daily WHERE bucket_start = ?";
+    private static final String INSERT_DAILY_SQL =
+        "INSERT INTO download_daily (application_id, bucket_start, downloads) "
+            + "SELECT application_id, CAST(? AS TIMESTAMP WITH TIME ZONE), SUM(downloads) FROM download_hourly "
+            + "WHERE bucket_start >= ? AND bucket_start < ? GROUP BY application_id";
+    private static final String DELETE_EXPIRED_HOURLY_SQL = "DELETE FROM download_hourly WHERE bucket_start < ?";
+    private static final String TRENDING_SQL = "SELECT application_id, SUM(downloads) FROM ("
+        + "SELECT application_id, downloads FROM download_hourly WHERE bucket_start >= ? AND bucket_start < ? "
+        + "UNION ALL "
+        + "SELECT application_id, downloads FROM download_daily WHERE bucket_start >= ? AND bucket_start < ? "
+        + "UNION ALL "
+        + "SELECT application_id, downloads FROM download_hourly WHERE bucket_start >= ? AND bucket_start < ?"
+        + ") d GROUP BY application_id";
+
+    private final DownloadTimeSeries timeSeries;
+    private final ApplicationRepository applicationRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final StoreProperties storeProperties;
+    // downloads of hours not rolled up yet by hour, ordered from the oldest one
+    private final NavigableMap<Long, Map<Integer, Long>> pendingHours = new ConcurrentSkipListMap<>();
+    private ScheduledFuture<?> scheduledRollup;
+    private long currentHour;
+
+    @PostConstruct
+    public void scheduleRollup() {
+        final var now = Instant.now();
+        currentHour = Math.floorDiv(toMinute(now), MINUTES_PER_HOUR);
+        scheduledRollup = taskScheduler.scheduleAtFixedRate(this::rollup,
+            now.truncatedTo(ChronoUnit.MINUTES).plus(Duration.ofMinutes(1)), Duration.ofMinutes(1));
+    }
+
+    /**
+     * Downloads of the current hour are written on shutdown, the rest of the hour is added by the next run.
+     */
+    @PreDestroy
+    public synchronized void shutdown() {
+        if (scheduledRollup != null) {
+            scheduledRollup.cancel(false);
+        }
+        final long minute = toMinute(Instant.now());
+        final long hour = Math.floorDiv(minute, MINUTES_PER_HOUR);
+        if (hour != currentHour) {
+            completeHour(hour);
+        }
+        timeSeries.drain(minute);
+        completeHour(currentHour);
+        persistPendingHours();
+        if (!pendingHours.isEmpty()) {
+            log.warn("Downloads of {} hours aren't rolled up before shutdown", pendingHours.size());
+        }
+    }
+
+    /**
+     * Method for draining downloads of the last minute, hour is rolled up when it is over.
+     */
+    public synchronized void rollup() {
+        // counts drained right after a minute boundary belong to the minute which is just over
+        final long minute = toMinute(Instant.now()) - 1;
+        final long hour = Math.floorDiv(minute, MINUTES_PER_HOUR);
+        // hour is taken out of the ring before its first minute slot is reused
+        if (hour != currentHour) {
+            completeHour(hour);
+        }
+        persistPendingHours();
+
+        final var bucket = timeSeries.drain(minute);
+        if (bucket.dropped() > 0) {
+            log.warn("{} downloads of minute {} aren't recorded in analytics, store.analytics.capacity is exceeded",
+                bucket.dropped(), minute);
+        }
+    }
+
+    /**
+     * Method for getting the most downloaded applications of a window ending now.
+     * Downloads of other nodes are included when their hour is rolled up.
+     *
+     * @param window duration of the window, null for store.analytics.trending-window
+     * @param limit  max quantity of applications, null for store.analytics.trending-limit
+     * @return applications ordered by downloads in the window
+     * @throws IllegalArgumentException if window isn't positive
+     */
+    @Transactional(readOnly = true)
+    public List<TrendingApplication> getTrending(final Duration window, final Integer limit)
+        throws IllegalArgumentException {
+        final var analytics = storeProperties.getAnalytics();
+        final var trendingWindow = Objects.requireNonNullElse(window, analytics.getTrendingWindow());
+        if (trendingWindow.isNegative() || trendingWindow.isZero()) {
+            throw new IllegalArgumentException("Trending window must be positive");
+        }
+        final int trendingLimit = Math.max(1, Math.min(Objects.requireNonNullElse(limit,
+            analytics.getTrendingLimit()), storeProperties.getCatalog().getMaxPageSize()));
+
+        final var now = Instant.now();
+        final var from = now.minus(trendingWindow);
+        final var fromHour = from.truncatedTo(ChronoUnit.HOURS);
+        final var hour = now.truncatedTo(ChronoUnit.HOURS);
+        final var today = now.truncatedTo(ChronoUnit.DAYS);
+        final var fromDay = fromHour.equals(fromHour.truncatedTo(ChronoUnit.DAYS))
+            ? fromHour : fromHour.truncatedTo(ChronoUnit.DAYS).plus(Duration.ofDays(1));
+
+        final Map<Integer, Long> downloads = timeSeries.sumSince(Math.max(toMinute(from), toMinute(hour)));
+        pendingHours.tailMap(Math.floorDiv(toMinute(fromHour), MINUTES_PER_HOUR)).values().forEach(pending ->
+            pending.forEach((id, value) -> downloads.merge(id, value, Long::sum)));
+        if (fromHour.isBefore(hour)) {
+            final var leadingEnd = fromDay.isBefore(hour) ? fromDay : hour;
+            jdbcTemplate.query(TRENDING_SQL, resultSet -> {
+                downloads.merge(resultSet.getInt(1), resultSet.getLong(2), Long::sum);
+            }, Timestamp.from(fromHour), Timestamp.from(leadingEnd),
+                Timestamp.from(fromDay), Timestamp.from(today),
+                Timestamp.from(fromDay.isAfter(today) ? fromDay : today), Timestamp.from(hour));
+        }
+
+        final List<Map.Entry<Integer, Long>> top = downloads.entrySet().stream()
+            .sorted(Map.Entry.<Integer, Long>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Integer, Long>comparingByKey()))
+            .limit(trendingLimit)
+            .toList();
+        if (top.isEmpty()) {
+            return List.of();
+        }
+        final Map<Integer, ApplicationDao> listings = applicationRepository.findListingsByIdIn(
+                top.stream().map(Map.Entry::getKey).toList()).stream()
+            .collect(Collectors.toMap(ApplicationDao::getId, Function.identity()));
+
+        final List<TrendingApplication> trending = new ArrayList<>(top.size());
+        top.forEach(entry -> {
+            final var listing = listings.get(entry.getKey());
+            if (listing != null) {
+                trending.add(new TrendingApplication(listing, entry.getValue()));
+            }
+        });
+        return trending;
+    }
+
+    /**
+     * Method for moving downloads of the current hour from the ring into pending hours.
+     *
+     * @param nextHour hour becoming the current one
+     */
+    private void completeHour(final long nextHour) {
+        final long fromMinute = currentHour * MINUTES_PER_HOUR;
+        final Map<Integer, Long> downloads = timeSeries.sum(fromMinute, fromMinute + MINUTES_PER_HOUR);
+        if (!downloads.isEmpty()) {
+            pendingHours.merge(currentHour, Map.copyOf(downloads), (previous, added) -> {
+                final Map<Integer, Long> merged = new HashMap<>(previous);
+                added.forEach((id, value) -> merged.merge(id, value, Long::sum));
+                return Map.copyOf(merged);
+            });
+        }
+        currentHour = nextHour;
+
+        while (pendingHours.size() > MAX_PENDING_HOURS) {
+            final var dropped = pendingHours.pollFirstEntry();
+            log.warn("Downloads of hour {} are dropped, rollup has failed for {} hours",
+                Instant.ofEpochSecond(dropped.getKey() * MINUTES_PER_HOUR * SECONDS_PER_MINUTE), MAX_PENDING_HOURS);
+        }
+    }
+
+    private void persistPendingHours() {
+        for (final var pending : pendingHours.entrySet()) {
+            if (!persistHour(pending.getKey(), pending.getValue())) {
+                // db is likely unavailable, later hours are retried with this one on the next run
+                return;
+            }
+            pendingHours.remove(pending.getKey());
+        }
+    }
+
+    private boolean persistHour(final long hour, final Map<Integer, Long> downloads) {
+        final long fromMinute = hour * MINUTES_PER_HOUR;
+        final var bucketStart = Instant.ofEpochSecond(fromMinute * SECONDS_PER_MINUTE);
+        final var dayStart = bucketStart.truncatedTo(ChronoUnit.DAYS);
+        final var bucketTimestamp = Timestamp.from(bucketStart);
+        final List<Object[]> rows = new ArrayList<>(downloads.size());
+        downloads.forEach((id, value) -> rows.add(new Object[]{value, id, bucketTimestamp}));
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update(LOCK_SQL, Timestamp.from(Instant.now()));
+
+                final int[] updated = jdbcTemplate.batchUpdate(ADD_HOURLY_SQL, rows);
+                final List<Object[]> inserted = new ArrayList<>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        inserted.add(rows.get(i));
+                    }
+                }
+                jdbcTemplate.batchUpdate(INSERT_HOURLY_SQL, inserted);
+
+                jdbcTemplate.update(DELETE_DAILY_SQL, Timestamp.from(dayStart));
+                jdbcTemplate.update(INSERT_DAILY_SQL, Timestamp.from(dayStart), Timestamp.from(dayStart),
+                    Timestamp.from(dayStart.plus(Duration.ofDays(1))));
+                final var retention = storeProperties.getAnalytics().getHourlyRetention();
+                jdbcTemplate.update(DELETE_EXPIRED_HOURLY_SQL, Timestamp.from(bucketStart.minus(
+                    retention.compareTo(MIN_HOURLY_RETENTION) < 0 ? MIN_HOURLY_RETENTION : retention)));
+            });
+            log.debug("Downloads of {} applications are rolled up into hour {}", rows.size(), bucketStart);
+            return true;
+        } catch (DataAccessException e) {
+            log.warn("Downloads of hour {} aren't rolled up, the hour is retried on the next run", bucketStart, e);
+            return false;
+        }
+    }
+
+    private static long toMinute(final Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), SECONDS_PER_MINUTE);
+    }
+}
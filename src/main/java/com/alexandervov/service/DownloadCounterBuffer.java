@@ -0,0 +1,136 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind buffer of download counters.
+ * Downloads are accumulated in memory and periodically flushed as one appended download_event row per application,
+ * flush is also triggered when buffered downloads exceed store.download-counter.max-lag and on shutdown.
+ * Flush only inserts, so nodes never contend for application rows, events are folded into counters
+ * by {@link DownloadEventCompactor}.
+ * Counters are exact only when the node stops gracefully: downloads buffered since the last flush,
+ * at most store.download-counter.flush-interval or store.download-counter.max-lag downloads,
+ * are lost when the node crashes or is killed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DownloadCounterBuffer {
+
+    private static final String INSERT_EVENT_SQL =
+        "INSERT INTO download_event (application_id, downloads, created_at) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final StoreProperties storeProperties;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Integer, LongAdder> counters = new ConcurrentHashMap<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicBoolean earlyFlushRequested = new AtomicBoolean();
+    private ScheduledFuture<?> scheduledFlush;
+
+    @PostConstruct
+    public void scheduleFlush() {
+        scheduledFlush = taskScheduler.scheduleWithFixedDelay(this::flush,
+            storeProperties.getDownloadCounter().getFlushInterval());
+    }
+
+    /**
+     * Method for registration one download of application.
+     *
+     * @param id application id
+     */
+    public void increment(final int id) {
+        counters.computeIfAbsent(id, key -> new LongAdder()).increment();
+        if (pending.incrementAndGet() >= storeProperties.getDownloadCounter().getMaxLag()
+            && earlyFlushRequested.compareAndSet(false, true)) {
+            taskScheduler.schedule(this::flush, Instant.now());
+        }
+    }
+
+    /**
+     * Method for writing all buffered downloads to db.
+     */
+    public synchronized void flush() {
+        earlyFlushRequested.set(false);
+        final var now = Timestamp.from(Instant.now());
+        final List<Object[]> batch = new ArrayList<>();
+        counters.forEach((id, counter) -> {
+            final long delta = counter.sumThenReset();
+            if (delta > 0) {
+                batch.add(new Object[]{id, delta, now});
+            }
+        });
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        final long flushed = batch.stream().mapToLong(row -> (long) row[1]).sum();
+        pending.addAndGet(-flushed);
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_EVENT_SQL, batch));
+            log.debug("Flushed {} downloads of {} applications", flushed, batch.size());
+        } catch (DataAccessException e) {
+            batch.forEach(row -> counters.computeIfAbsent((Integer) row[0], key -> new LongAdder()).add((long) row[1]));
+            pending.addAndGet(flushed);
+            log.warn("Download counters flush failed, {} downloads are kept in buffer", flushed, e);
+            return;
+        }
+
+        eventPublisher.publishEvent(CatalogChangedEvent.countersFlushed(
+            batch.stream().map(row -> (Integer) row[0]).collect(Collectors.toSet())));
+    }
+
+    /**
+     * Method for reading flushed downloads consistently with buffered ones. Flush waits until the reader is done,
+     * so every download is either flushed before reading or still buffered.
+     *
+     * @param reader reads flushed downloads from db
+     * @return buffered downloads by application id
+     */
+    public synchronized Map<Integer, Long> readConsistently(final Runnable reader) {
+        reader.run();
+        final Map<Integer, Long> buffered = new HashMap<>();
+        counters.forEach((id, counter) -> {
+            final long downloads = counter.sum();
+            if (downloads > 0) {
+                buffered.put(id, downloads);
+            }
+        });
+        return buffered;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+        }
+        flush();
+    }
+}
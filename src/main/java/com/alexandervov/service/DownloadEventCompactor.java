@@ -0,0 +1,115 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Periodic folding of download events appended by all nodes into application download counters.
+ * Every batch of events is added to counters and deleted in one transaction, so each event is counted exactly once.
+ * Batch transaction starts by locking the single download_compaction row, so nodes compact one at a time,
+ * and deletes events by the ids it has read, so events committed meanwhile are left for the next batch.
+ * Every run ends with {@link CountersCompactedEvent}, so node-local state catches up with counters of all nodes.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DownloadEventCompactor {
+
+    private static final String LOCK_SQL = "UPDATE download_compaction SET compacted_at = ? WHERE id = 1";
+    private static final String SELECT_EVENTS_SQL =
+        "SELECT id, application_id, downloads FROM download_event ORDER BY id FETCH FIRST ? ROWS ONLY";
+    private static final String INCREMENT_COUNTER_SQL =
+        "UPDATE application SET download_counter = download_counter + ? WHERE id = ?";
+    private static final String DELETE_EVENT_SQL = "DELETE FROM download_event WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final StoreProperties storeProperties;
+    private final ApplicationEventPublisher eventPublisher;
+    private ScheduledFuture<?> scheduledCompaction;
+
+    @PostConstruct
+    public void scheduleCompaction() {
+        scheduledCompaction = taskScheduler.scheduleWithFixedDelay(this::compact,
+            storeProperties.getDownloadCounter().getCompactionInterval());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledCompaction != null) {
+            scheduledCompaction.cancel(false);
+        }
+    }
+
+    /**
+     * Method for folding all committed download events into download counters.
+     *
+     * @return quantity of compacted events
+     */
+    public synchronized long compact() {
+        final int batchSize = Math.max(1, storeProperties.getDownloadCounter().getCompactionBatchSize());
+        final Set<Integer> compacted = new HashSet<>();
+        long events = 0;
+        try {
+            int batch;
+            do {
+                batch = Objects.requireNonNull(transactionTemplate.execute(status ->
+                    compactBatch(batchSize, compacted)));
+                events += batch;
+            } while (batch == batchSize);
+        } catch (DataAccessException e) {
+            log.warn("Download events compaction failed after {} events, the rest is left for the next run",
+                events, e);
+        }
+
+        if (!compacted.isEmpty()) {
+            log.debug("Compacted {} download events of {} applications", events, compacted.size());
+            eventPublisher.publishEvent(CatalogChangedEvent.countersFlushed(compacted));
+        }
+        eventPublisher.publishEvent(new CountersCompactedEvent(events));
+        return events;
+    }
+
+    private int compactBatch(final int batchSize, final Set<Integer> compacted) {
+        jdbcTemplate.update(LOCK_SQL, Timestamp.from(Instant.now()));
+
+        final List<Object[]> eventIds = new ArrayList<>();
+        // sorted by id, so concurrent transactions lock application rows in the same order
+        final Map<Integer, Long> downloads = new TreeMap<>();
+        jdbcTemplate.query(SELECT_EVENTS_SQL, resultSet -> {
+            eventIds.add(new Object[]{resultSet.getLong(1)});
+            downloads.merge(resultSet.getInt(2), resultSet.getLong(3), Long::sum);
+        }, batchSize);
+        if (eventIds.isEmpty()) {
+            return 0;
+        }
+
+        final List<Object[]> increments = new ArrayList<>(downloads.size());
+        downloads.forEach((id, delta) -> increments.add(new Object[]{delta, id}));
+        jdbcTemplate.batchUpdate(INCREMENT_COUNTER_SQL, increments);
+        jdbcTemplate.batchUpdate(DELETE_EVENT_SQL, eventIds);
+        compacted.addAll(downloads.keySet());
+        return eventIds.size();
+    }
+}
@@ -0,0 +1,176 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * In-memory per-minute download counts of applications on this node.
+ * Recording doesn't allocate: application ids are placed into an open addressing table of atomic primitive arrays
+ * and counted by atomic increments. Every minute counts are drained into a minute bucket,
+ * buckets of the last {@value #RING_MINUTES} minutes are kept in a ring until they are rolled up.
+ * Ids are never removed from the table, downloads of applications not fitting into store.analytics.capacity
+ * are only counted as dropped.
+ */
+@Service
+public class DownloadTimeSeries {
+
+    public static final int RING_MINUTES = 60;
+
+    private static final int EMPTY = 0;
+
+    private final AtomicIntegerArray applicationIds;
+    private final AtomicLongArray downloads;
+    private final int mask;
+    private final LongAdder dropped = new LongAdder();
+    private final MinuteBucket[] ring = new MinuteBucket[RING_MINUTES];
+
+    public DownloadTimeSeries(final StoreProperties storeProperties) {
+        final int capacity = Integer.highestOneBit(Math.max(2, storeProperties.getAnalytics().getCapacity()) - 1) << 1;
+        this.applicationIds = new AtomicIntegerArray(capacity);
+        this.downloads = new AtomicLongArray(capacity);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Method for registration one download of application in the current minute.
+     *
+     * @param applicationId application id
+     */
+    public void record(final int applicationId) {
+        final int index = indexOf(applicationId);
+        if (index < 0) {
+            dropped.increment();
+            return;
+        }
+        downloads.incrementAndGet(index);
+    }
+
+    /**
+     * Method for moving downloads counted since the previous drain into bucket of the minute.
+     * Downloads drained twice for the same minute are added to its bucket.
+     *
+     * @param minute minutes since epoch
+     * @return bucket of the minute
+     */
+    public synchronized MinuteBucket drain(final long minute) {
+        final Map<Integer, Long> counts = new HashMap<>();
+        final int slot = (int) Math.floorMod(minute, RING_MINUTES);
+        final var previous = ring[slot];
+        long droppedDownloads = dropped.sumThenReset();
+        if (previous != null && previous.minute() == minute) {
+            previous.forEach(counts::put);
+            droppedDownloads += previous.dropped();
+        }
+        drainInto(counts);
+
+        final int[] ids = new int[counts.size()];
+        final long[] values = new long[counts.size()];
+        int i = 0;
+        for (final var entry : counts.entrySet()) {
+            ids[i] = entry.getKey();
+            values[i] = entry.getValue();
+            i++;
+        }
+        final var bucket = new MinuteBucket(minute, ids, values, droppedDownloads);
+        ring[slot] = bucket;
+        return bucket;
+    }
+
+    /**
+     * Method for summing downloads of kept minute buckets.
+     *
+     * @param fromMinute first minute, inclusive
+     * @param toMinute   last minute, exclusive
+     * @return downloads by application id
+     */
+    public synchronized Map<Integer, Long> sum(final long fromMinute, final long toMinute) {
+        final Map<Integer, Long> counts = new HashMap<>();
+        for (final MinuteBucket bucket : ring) {
+            if (bucket != null && bucket.minute() >= fromMinute && bucket.minute() < toMinute) {
+                bucket.forEach((id, value) -> counts.merge(id, value, Long::sum));
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Method for summing downloads of kept minute buckets and downloads not drained yet.
+     *
+     * @param fromMinute first minute, inclusive
+     * @return downloads by application id
+     */
+    public synchronized Map<Integer, Long> sumSince(final long fromMinute) {
+        final var counts = sum(fromMinute, Long.MAX_VALUE);
+        for (int i = 0; i <= mask; i++) {
+            final int id = applicationIds.get(i);
+            final long value = downloads.get(i);
+            if (id != EMPTY && value > 0) {
+                counts.merge(id, value, Long::sum);
+            }
+        }
+        return counts;
+    }
+
+    private void drainInto(final Map<Integer, Long> counts) {
+        for (int i = 0; i <= mask; i++) {
+            final int id = applicationIds.get(i);
+            if (id == EMPTY) {
+                continue;
+            }
+            final long value = downloads.getAndSet(i, 0);
+            if (value > 0) {
+                counts.merge(id, value, Long::sum);
+            }
+        }
+    }
+
+    private int indexOf(final int applicationId) {
+        int index = mix(applicationId) & mask;
+        for (int probe = 0; probe <= mask; probe++) {
+            final int id = applicationIds.get(index);
+            if (id == applicationId) {
+                return index;
+            }
+            if (id == EMPTY && (applicationIds.compareAndSet(index, EMPTY, applicationId)
+                || applicationIds.get(index) == applicationId)) {
+                return index;
+            }
+            index = (index + 1) & mask;
+        }
+        return -1;
+    }
+
+    private static int mix(final int key) {
+        final int hash = key * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Downloads of one minute.
+     *
+     * @param minute         minutes since epoch
+     * @param applicationIds downloaded applications
+     * @param downloads      downloads of applications at the same positions
+     * @param dropped        downloads of applications not fitting into the table
+     */
+    public record MinuteBucket(long minute, int[] applicationIds, long[] downloads, long dropped) {
+
+        /**
+         * Method for iterating downloads of the minute.
+         *
+         * @param consumer receives application id and its downloads
+         */
+        public void forEach(final ObjLongConsumer<Integer> consumer) {
+            for (int i = 0; i < applicationIds.length; i++) {
+                consumer.accept(applicationIds[i], downloads[i]);
+            }
+        }
+    }
+}
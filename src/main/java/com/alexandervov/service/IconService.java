@@ -0,0 +1,44 @@
+package com.alexandervov.service;
+
+import com.alexandervov.dao.ApplicationDao;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Optional;
+
+@Service
+@AllArgsConstructor
+public class IconService {
+
+    public static final int SMALL_ICON_SIZE = 128;
+    public static final int LARGE_ICON_SIZE = 512;
+
+    private final ApplicationDetailsCache detailsCache;
+
+    /**
+     * Method for getting hash of application picture.
+     *
+     * @param applicationId application id
+     * @param size          picture size, 128 or 512
+     * @return picture hash, empty if application or size doesn't exist
+     */
+    public Optional<String> getIconHash(final int applicationId, final int size) {
+        return switch (size) {
+            case SMALL_ICON_SIZE -> detailsCache.getDetails(applicationId).map(ApplicationDao::getPicture128Hash);
+            case LARGE_ICON_SIZE -> detailsCache.getDetails(applicationId).map(ApplicationDao::getPicture512Hash);
+            default -> Optional.empty();
+        };
+    }
+
+    /**
+     * Method for reading raw picture bytes, popular pictures are served from memory.
+     *
+     * @param hash picture hash
+     * @return picture content
+     * @throws IOException could be occurred during reading blob store
+     */
+    public byte[] readIcon(final String hash) throws IOException {
+        return detailsCache.getIcon(hash);
+    }
+}
@@ -0,0 +1,137 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOException;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Decoding of uploaded pictures and encoding of icons with exact sizes.
+ * Picture dimensions are read from image header and checked before decoding,
+ * so small files declaring huge dimensions (decompression bombs) are rejected without allocating pixels.
+ */
+@Service
+@RequiredArgsConstructor
+public class ImageProcessor {
+
+    private static final String PNG_FORMAT = "png";
+    private static final byte[] PNG_SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    private final StoreProperties storeProperties;
+
+    /**
+     * Method for decoding picture.
+     *
+     * @param content picture bytes
+     * @param name    picture name used in error messages
+     * @return decoded picture
+     * @throws IOException if picture format isn't supported, picture is broken or has too many pixels
+     */
+    public BufferedImage decode(final byte[] content, final String name) throws IOException {
+        try (ImageInputStream inputStream = ImageIO.createImageInputStream(new ByteArrayInputStream(content))) {
+            final var readers = ImageIO.getImageReaders(inputStream);
+            if (!readers.hasNext()) {
+                throw new IIOException("Picture " + name + " has unsupported format");
+            }
+
+            final ImageReader reader = readers.next();
+            try {
+                reader.setInput(inputStream, true, true);
+                final long width = reader.getWidth(0);
+                final long height = reader.getHeight(0);
+                final long maxPixels = storeProperties.getUpload().getMaxPicturePixels();
+                if (width <= 0 || height <= 0 || width * height > maxPixels) {
+                    throw new IIOException("Picture " + name + " has " + width + "x" + height
+                        + " pixels, max is " + maxPixels);
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Method for encoding square icon, picture is scaled to fit the icon keeping proportions
+     * and centered on transparent background.
+     *
+     * @param picture  decoded picture
+     * @param original original picture bytes, kept if it is already optimal png of requested size
+     * @param size     icon width and height
+     * @return png bytes
+     * @throws IOException could be occurred during encoding
+     */
+    public byte[] toIcon(final BufferedImage picture, final byte[] original, final int size) throws IOException {
+        final var icon = encodePng(picture.getWidth() == size && picture.getHeight() == size
+            ? picture : resize(picture, size));
+
+        final boolean originalIsFit = original != null && isPng(original)
+            && picture.getWidth() == size && picture.getHeight() == size;
+        return originalIsFit && original.length <= icon.length ? original : icon;
+    }
+
+    private BufferedImage resize(final BufferedImage picture, final int size) {
+        final double scale = Math.min((double) size / picture.getWidth(), (double) size / picture.getHeight());
+        final int targetWidth = Math.max(1, (int) Math.round(picture.getWidth() * scale));
+        final int targetHeight = Math.max(1, (int) Math.round(picture.getHeight() * scale));
+
+        // halving steps keep bilinear downscaling from skipping source pixels
+        var current = picture;
+        while (current.getWidth() / 2 >= targetWidth && current.getHeight() / 2 >= targetHeight) {
+            current = draw(current, current.getWidth() / 2, current.getHeight() / 2, current.getWidth() / 2,
+                current.getHeight() / 2);
+        }
+        return draw(current, targetWidth, targetHeight, size, size);
+    }
+
+    private BufferedImage draw(final BufferedImage source, final int width, final int height,
+                               final int canvasWidth, final int canvasHeight) {
+        final var target = new BufferedImage(canvasWidth, canvasHeight, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, (canvasWidth - width) / 2, (canvasHeight - height) / 2, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private byte[] encodePng(final BufferedImage image) throws IOException {
+        final var writer = ImageIO.getImageWritersByFormatName(PNG_FORMAT).next();
+        final var outputStream = new ByteArrayOutputStream();
+        try (MemoryCacheImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream)) {
+            final ImageWriteParam param = writer.getDefaultWriteParam();
+            if (param.canWriteCompressed()) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                // lowest quality means the strongest lossless deflate level for png
+                param.setCompressionQuality(0.0f);
+            }
+            writer.setOutput(imageOutputStream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return outputStream.toByteArray();
+    }
+
+    private boolean isPng(final byte[] content) {
+        return content.length >= PNG_SIGNATURE.length
+            && Arrays.equals(content, 0, PNG_SIGNATURE.length, PNG_SIGNATURE, 0, PNG_SIGNATURE.length);
+    }
+}
@@ -0,0 +1,185 @@
+package com.alexandervov.service;
+
+import com.alexandervov.entity.ApplicationDelta;
+import com.alexandervov.entity.ApplicationVersion;
+import com.alexandervov.repository.ApplicationDeltaRepository;
+import com.alexandervov.repository.ApplicationVersionRepository;
+import com.alexandervov.storage.BlobStore;
+import com.alexandervov.storage.BlobWriter;
+import com.alexandervov.storage.StoredBlob;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Background computation of zip-entry-level deltas between consecutive package versions.
+ * Delta is a zip archive starting with {@value #DELTA_MANIFEST} entry, followed by entries of the new package
+ * whose content differs from the previous package. Manifest lists every entry of the new package in order,
+ * prefixed by {@value #KEEP_PREFIX} if it is taken from the previous package or by {@value #ADD_PREFIX}
+ * if it is taken from the delta, entries not listed are removed.
+ * Entries are compared by CRC-32 and size from zip central directory, so unchanged entries are never read.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PackageDeltaService {
+
+    public static final String DELTA_MANIFEST = ".delta/manifest.txt";
+    public static final String KEEP_PREFIX = "= ";
+    public static final String ADD_PREFIX = "+ ";
+
+    private final ApplicationVersionRepository versionRepository;
+    private final ApplicationDeltaRepository deltaRepository;
+    private final BlobStore blobStore;
+    private ExecutorService deltaExecutor;
+
+    @PostConstruct
+    public void init() {
+        deltaExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("delta-"));
+    }
+
+    /**
+     * Method for scheduling computation of delta from the previous version.
+     *
+     * @param target saved version
+     */
+    public void schedule(final ApplicationVersion target) {
+        if (target.getVersion() > 1) {
+            deltaExecutor.execute(() -> compute(target));
+        }
+    }
+
+    /**
+     * Method for resuming deltas interrupted by shutdown, runs after db initialization.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeDeltas() {
+        final List<ApplicationVersion> versions = versionRepository.findVersionsWithoutDelta();
+        versions.forEach(this::schedule);
+        if (!versions.isEmpty()) {
+            log.info("{} package deltas are resumed", versions.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        deltaExecutor.shutdownNow();
+    }
+
+    private void compute(final ApplicationVersion target) {
+        final int applicationId = target.getApplicationId();
+        final int fromVersion = target.getVersion() - 1;
+        try {
+            if (deltaRepository.existsByApplicationIdAndToVersion(applicationId, target.getVersion())) {
+                return;
+            }
+
+            final var base = versionRepository.findByApplicationIdAndVersion(applicationId, fromVersion).orElse(null);
+            if (base == null) {
+                log.warn("Version {} of application {} isn't exist, delta isn't computed", fromVersion, applicationId);
+                return;
+            }
+
+            final var delta = new ApplicationDelta();
+            delta.setApplicationId(applicationId);
+            delta.setFromVersion(fromVersion);
+            delta.setToVersion(target.getVersion());
+            delta.setCreatedAt(Instant.now());
+
+            final var storedDelta = createDelta(base, target);
+            if (storedDelta.size() < target.getPackageSize()) {
+                delta.setDeltaHash(storedDelta.hash());
+                delta.setDeltaSize(storedDelta.size());
+            }
+            deltaRepository.save(delta);
+            log.debug("Delta of application {} from version {} has {} bytes, package has {} bytes",
+                applicationId, fromVersion, storedDelta.size(), target.getPackageSize());
+        } catch (IOException | RuntimeException e) {
+            log.warn("Delta of application {} from version {} isn't computed", applicationId, fromVersion, e);
+        }
+    }
+
+    private StoredBlob createDelta(final ApplicationVersion base, final ApplicationVersion target) throws IOException {
+        final List<Path> tempFiles = new ArrayList<>();
+        try (ZipFile baseZip = new ZipFile(toFile(base.getPackageHash(), tempFiles).toFile());
+             ZipFile targetZip = new ZipFile(toFile(target.getPackageHash(), tempFiles).toFile());
+             BlobWriter writer = blobStore.newBlob()) {
+            final Map<String, ZipEntry> baseEntries = new HashMap<>();
+            baseZip.stream().filter(entry -> !entry.isDirectory())
+                .forEach(entry -> baseEntries.put(entry.getName(), entry));
+
+            final var manifest = new StringBuilder();
+            final List<ZipEntry> addedEntries = new ArrayList<>();
+            targetZip.stream().filter(entry -> !entry.isDirectory()).forEach(entry -> {
+                final var baseEntry = baseEntries.get(entry.getName());
+                if (baseEntry != null && baseEntry.getCrc() == entry.getCrc()
+                    && baseEntry.getSize() == entry.getSize()) {
+                    manifest.append(KEEP_PREFIX).append(entry.getName()).append('\n');
+                } else {
+                    manifest.append(ADD_PREFIX).append(entry.getName()).append('\n');
+                    addedEntries.add(entry);
+                }
+            });
+
+            final var zipOutputStream = new ZipOutputStream(writer);
+            zipOutputStream.putNextEntry(new ZipEntry(DELTA_MANIFEST));
+            zipOutputStream.write(manifest.toString().getBytes(StandardCharsets.UTF_8));
+            zipOutputStream.closeEntry();
+            for (final ZipEntry entry : addedEntries) {
+                zipOutputStream.putNextEntry(new ZipEntry(entry.getName()));
+                try (InputStream inputStream = targetZip.getInputStream(entry)) {
+                    inputStream.transferTo(zipOutputStream);
+                }
+                zipOutputStream.closeEntry();
+            }
+            zipOutputStream.finish();
+            return writer.commit();
+        } finally {
+            for (final Path tempFile : tempFiles) {
+                Files.deleteIfExists(tempFile);
+            }
+        }
+    }
+
+    /**
+     * Packages of filesystem store are opened in place, other stores are copied into temp file.
+     */
+    private Path toFile(final String hash, final List<Path> tempFiles) throws IOException {
+        final var localPath = blobStore.localPath(hash);
+        if (localPath.isPresent()) {
+            return localPath.get();
+        }
+
+        final var tempFile = Files.createTempFile("package-", ".zip");
+        tempFiles.add(tempFile);
+        try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+            blobStore.write(hash, 0, blobStore.size(hash), outputStream);
+        }
+        return tempFile;
+    }
+}
@@ -0,0 +1,291 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.dao.ApplicationDao;
+import com.alexandervov.repository.ApplicationRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory ranking of applications by download counter.
+ * Seeded from db on startup, counters are incremented lock-free on every download.
+ * Readers get an immutable snapshot of the top applications without any locking or db access.
+ * The snapshot is rebuilt in background every store.popular-apps-refresh-interval, only if a download
+ * or an upload could have changed it: download of an application counted at least as the last one of the top
+ * marks the snapshot stale, downloads of less popular applications don't.
+ * Other nodes count their own downloads and uploads, so after every compaction counters are synchronized with
+ * compacted counters and download events of all nodes, and applications uploaded on other nodes are added.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PopularApplicationsLeaderboard {
+
+    private static final String COUNTERS_SQL = "SELECT a.id, a.name, a.download_counter + COALESCE(e.downloads, 0) "
+        + "FROM application a LEFT JOIN (SELECT application_id, SUM(downloads) AS downloads FROM download_event "
+        + "GROUP BY application_id) e ON e.application_id = a.id";
+
+    private static final Comparator<Entry> RANKING_ORDER = Comparator.comparingInt(Entry::downloadCounter).reversed()
+        .thenComparing(Entry::name)
+        .thenComparingInt(Entry::id);
+
+    private final ApplicationRepository applicationRepository;
+    private final StoreProperties storeProperties;
+    private final TaskScheduler taskScheduler;
+    private final JdbcTemplate jdbcTemplate;
+    private final DownloadCounterBuffer downloadCounterBuffer;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicBoolean stale = new AtomicBoolean();
+    private Map<Integer, ApplicationDao> topListings = new HashMap<>();
+    private volatile List<ApplicationDao> top = List.of();
+    // download counter of the last application of the top, 0 while the top isn't full
+    private volatile int minTopCounter;
+    private ScheduledFuture<?> scheduledRebuild;
+
+    @PostConstruct
+    public void scheduleRebuild() {
+        scheduledRebuild = taskScheduler.scheduleWithFixedDelay(this::rebuildIfStale,
+            storeProperties.getPopularAppsRefreshInterval());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduledRebuild != null) {
+            scheduledRebuild.cancel(false);
+        }
+    }
+
+    /**
+     * Method for seeding ranking from db, runs after db initialization.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void reload() {
+        entries.clear();
+        applicationRepository.findAllProjectedBy().forEach(rank ->
+            entries.put(rank.getId(), new Entry(rank.getId(), rank.getName(), rank.getDownloadCounter())));
+        topListings = new HashMap<>();
+        rebuild();
+        log.debug("Leaderboard is seeded by {} applications", entries.size());
+    }
+
+    /**
+     * Method for synchronizing counters with downloads flushed by all nodes, runs after every compaction.
+     * Counter is the compacted one plus download events not compacted yet plus downloads buffered by this node.
+     * Listeners are notified about applications uploaded on other nodes and about changed counters.
+     * Runs before other listeners of the compaction, so cached popular applications are rendered from the new snapshot.
+     */
+    @EventListener(CountersCompactedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void synchronizeCounters() {
+        final List<Entry> flushed = new ArrayList<>();
+        final var buffered = downloadCounterBuffer.readConsistently(() -> jdbcTemplate.query(COUNTERS_SQL,
+            resultSet -> {
+                flushed.add(new Entry(resultSet.getInt(1), resultSet.getString(2),
+                    Math.toIntExact(resultSet.getLong(3))));
+            }));
+
+        final Set<Integer> added = new HashSet<>();
+        final Set<Integer> changed = new HashSet<>();
+        for (Entry entry : flushed) {
+            final int downloadCounter = entry.downloadCounter() + buffered.getOrDefault(entry.id(), 0L).intValue();
+            final var current = entries.putIfAbsent(entry.id(), new Entry(entry.id(), entry.name(), downloadCounter));
+            if (current == null) {
+                added.add(entry.id());
+            } else if (current.downloadCounter() != downloadCounter) {
+                // downloads racing with synchronization are corrected by the next one
+                current.set(downloadCounter);
+                changed.add(entry.id());
+            }
+        }
+        if (added.isEmpty() && changed.isEmpty()) {
+            return;
+        }
+
+        stale.set(true);
+        rebuildIfStale();
+        log.debug("Leaderboard is synchronized, {} applications are added, {} counters are changed",
+            added.size(), changed.size());
+        if (!added.isEmpty()) {
+            eventPublisher.publishEvent(new CatalogChangedEvent(added, true));
+        }
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(CatalogChangedEvent.countersFlushed(changed));
+        }
+    }
+
+    /**
+     * Get DESC sorted top applications.
+     *
+     * @return immutable list of applications dao
+     */
+    public List<ApplicationDao> getTop() {
+        return top;
+    }
+
+    /**
+     * Get current download counter of application, including downloads not flushed to db yet.
+     *
+     * @param id application id
+     * @return download counter or -1 if application isn't ranked
+     */
+    public int getDownloadCounter(final int id) {
+        final var entry = entries.get(id);
+        return entry == null ? -1 : entry.downloadCounter();
+    }
+
+    /**
+     * Method for registration new uploaded application.
+     * The snapshot is rebuilt at once, so fragments invalidated by the upload are rendered with it.
+     *
+     * @param id              application id
+     * @param name            application name
+     * @param downloadCounter initial download counter
+     */
+    public void register(final int id, final String name, final int downloadCounter) {
+        entries.put(id, new Entry(id, name, downloadCounter));
+        stale.set(true);
+        rebuildIfStale();
+    }
+
+    /**
+     * Method for reloading listing of application with uploaded new version, if it is in the top.
+     *
+     * @param id application id
+     */
+    public synchronized void refreshListing(final int id) {
+        if (topListings.containsKey(id)) {
+            topListings.remove(id);
+            rebuild();
+        }
+    }
+
+    /**
+     * Method for incrementing download counter of application, doesn't lock and doesn't allocate.
+     *
+     * @param id application id
+     */
+    public void recordDownload(final int id) {
+        final var entry = entries.get(id);
+        if (entry != null && entry.increment() >= minTopCounter && !stale.get()) {
+            stale.set(true);
+        }
+    }
+
+    /**
+     * Method for rebuilding the top snapshot, if downloads or uploads could have changed it.
+     */
+    public void rebuildIfStale() {
+        if (stale.compareAndSet(true, false)) {
+            synchronized (this) {
+                rebuild();
+            }
+        }
+    }
+
+    private void rebuild() {
+        final int limit = storeProperties.getPopularAppsLimit();
+        // candidates are copies, so their order isn't broken by concurrent downloads
+        final PriorityQueue<Entry> best = new PriorityQueue<>(limit + 1, RANKING_ORDER.reversed());
+        for (Entry entry : entries.values()) {
+            final int downloadCounter = entry.downloadCounter();
+            if (best.size() == limit && downloadCounter < best.element().downloadCounter()) {
+                continue;
+            }
+            best.add(new Entry(entry.id(), entry.name(), downloadCounter));
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        final List<Entry> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING_ORDER);
+
+        final var missing = ranked.stream()
+            .map(Entry::id)
+            .filter(id -> !topListings.containsKey(id))
+            .toList();
+        final Map<Integer, ApplicationDao> loaded = missing.isEmpty() ? Map.of()
+            : applicationRepository.findListingsByIdIn(missing).stream()
+            .collect(Collectors.toMap(ApplicationDao::getId, Function.identity()));
+
+        final List<ApplicationDao> result = new ArrayList<>(ranked.size());
+        final Map<Integer, ApplicationDao> listings = new HashMap<>();
+        for (Entry entry : ranked) {
+            var listing = topListings.getOrDefault(entry.id(), loaded.get(entry.id()));
+            if (listing == null) {
+                continue;
+            }
+            if (listing.getDownloadCounter() != entry.downloadCounter()) {
+                listing = listing.toBuilder().downloadCounter(entry.downloadCounter()).build();
+            }
+            listings.put(entry.id(), listing);
+            result.add(listing);
+        }
+
+        topListings = listings;
+        minTopCounter = ranked.size() < limit ? 0 : ranked.get(ranked.size() - 1).downloadCounter();
+        if (!result.equals(top)) {
+            top = List.copyOf(result);
+        }
+    }
+
+    private static final class Entry {
+
+        private final int id;
+        private final String name;
+        private final AtomicInteger downloadCounter;
+
+        private Entry(final int id, final String name, final int downloadCounter) {
+            this.id = id;
+            this.name = name;
+            this.downloadCounter = new AtomicInteger(downloadCounter);
+        }
+
+        private int id() {
+            return id;
+        }
+
+        private String name() {
+            return name;
+        }
+
+        private int downloadCounter() {
+            return downloadCounter.get();
+        }
+
+        private int increment() {
+            return downloadCounter.incrementAndGet();
+        }
+
+        private void set(final int value) {
+            downloadCounter.set(value);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.dao.UploadJobStatus;
+import com.alexandervov.entity.Application;
+import com.alexandervov.entity.UploadJob;
+import com.alexandervov.repository.UploadJobRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous processing of uploaded application archives.
+ * Request thread only moves archive into staging directory and stores a pending job,
+ * at most store.upload.concurrency archives are processed at once. Jobs run on a fixed thread pool
+ * or, when a ThreadFactory bean is provided (virtual threads on Java 21), on threads of that factory.
+ * Jobs not finished before shutdown are resumed on startup. Job is marked done in the transaction saving
+ * its application, so a resumed job never uploads the same archive twice.
+ * Staging files are local, so a job belongs to the node which has accepted it (store.upload.node) and only that
+ * node resumes it. A job is claimed by an atomic change of its status from pending to processing,
+ * so a job queued twice is processed once.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UploadJobService {
+
+    private static final String STAGING_FILE_SUFFIX = ".zip";
+
+    private final UploadJobRepository uploadJobRepository;
+    private final ApplicationService applicationService;
+    private final StoreProperties storeProperties;
+    private final ObjectProvider<ThreadFactory> uploadThreadFactory;
+    private ExecutorService uploadExecutor;
+    private Semaphore uploadSlots;
+    private Path stagingDirectory;
+    private String node;
+
+    @PostConstruct
+    public void init() throws IOException {
+        stagingDirectory = Files.createDirectories(storeProperties.getUpload().getStagingDirectory()
+            .toAbsolutePath().normalize());
+        node = Objects.requireNonNullElse(storeProperties.getUpload().getNode(),
+            InetAddress.getLocalHost().getHostName());
+        // nothing is processed before startup, so processing jobs of this node were interrupted by shutdown
+        final int interrupted = uploadJobRepository.updateStatusByNode(node, UploadJob.Status.PROCESSING,
+            UploadJob.Status.PENDING, Instant.now());
+        if (interrupted > 0) {
+            log.info("{} upload jobs interrupted by shutdown are returned to the queue", interrupted);
+        }
+        final int concurrency = storeProperties.getUpload().getConcurrency();
+        final var threadFactory = uploadThreadFactory.getIfAvailable();
+        uploadExecutor = threadFactory == null
+            ? Executors.newFixedThreadPool(concurrency, new CustomizableThreadFactory("upload-"))
+            : Executors.newCachedThreadPool(threadFactory);
+        uploadSlots = new Semaphore(concurrency);
+    }
+
+    /**
+     * Method for accepting uploaded archive, archive is processed asynchronously.
+     *
+     * @param name        of application
+     * @param categoryId  of application
+     * @param description of application
+     * @param file        zip archive of application
+     * @param createdBy   name of uploading user
+     * @return pending job
+     * @throws IOException can be occurred during storing archive in staging directory
+     */
+    public UploadJob submit(final String name, final Integer categoryId, final String description,
+                            final MultipartFile file, final String createdBy) throws IOException {
+        return submit(newJob(name, categoryId, description, createdBy), file);
+    }
+
+    /**
+     * Method for accepting archive of new version of existing application, archive is processed asynchronously.
+     *
+     * @param application existing application
+     * @param description new description of application, null to keep the current one
+     * @param file        zip archive of application
+     * @param createdBy   name of uploading user
+     * @return pending job
+     * @throws IOException can be occurred during storing archive in staging directory
+     */
+    public UploadJob submitVersion(final Application application, final String description,
+                                   final MultipartFile file, final String createdBy) throws IOException {
+        final var job = newJob(application.getName(), application.getCategory().getId(),
+            description == null || description.isBlank() ? application.getDescription() : description, createdBy);
+        job.setNewVersion(true);
+        return submit(job, file);
+    }
+
+    /**
+     * Method for getting upload job status, jobs are visible only to the user who has submitted them.
+     *
+     * @param id        job id
+     * @param createdBy name of requesting user
+     * @return job status, empty if job isn't exist or is submitted by another user
+     */
+    public Optional<UploadJobStatus> getStatus(final String id, final String createdBy) {
+        return uploadJobRepository.findStatusByIdAndCreatedBy(id, createdBy);
+    }
+
+    /**
+     * Method for resuming pending jobs of this node, runs after db initialization.
+     * Jobs accepted before nodes were stored are resumed if their staging file is kept by this node.
+     */
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumeJobs() {
+        final List<UploadJob> jobs = uploadJobRepository.findByNodeAndStatusIn(node, List.of(UploadJob.Status.PENDING))
+            .stream()
+            .filter(job -> job.getNode() != null || Files.exists(Path.of(job.getStagingFile())))
+            .toList();
+        jobs.forEach(job -> uploadExecutor.execute(() -> process(job.getId())));
+        if (!jobs.isEmpty()) {
+            log.info("{} upload jobs are resumed", jobs.size());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        uploadExecutor.shutdownNow();
+    }
+
+    private UploadJob newJob(final String name, final Integer categoryId, final String description,
+                             final String createdBy) {
+        final var now = Instant.now();
+        final var job = new UploadJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setName(name);
+        job.setCategoryId(categoryId);
+        job.setDescription(description);
+        job.setStatus(UploadJob.Status.PENDING);
+        job.setNode(node);
+        job.setCreatedBy(createdBy);
+        job.setCreatedAt(now);
+        job.setUpdatedAt(now);
+        return job;
+    }
+
+    private UploadJob submit(final UploadJob job, final MultipartFile file) throws IOException {
+        final var stagingFile = stagingDirectory.resolve(job.getId() + STAGING_FILE_SUFFIX);
+        file.transferTo(stagingFile);
+        job.setStagingFile(stagingFile.toString());
+        try {
+            uploadJobRepository.save(job);
+        } catch (RuntimeException e) {
+            Files.deleteIfExists(stagingFile);
+            throw e;
+        }
+
+        uploadExecutor.execute(() -> process(job.getId()));
+        return job;
+    }
+
+    private void process(final String id) {
+        try {
+            uploadSlots.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        try {
+            processJob(id);
+        } finally {
+            uploadSlots.release();
+        }
+    }
+
+    private void processJob(final String id) {
+        // job already claimed by another thread or finished isn't processed
+        if (uploadJobRepository.updateStatus(id, node, UploadJob.Status.PENDING, UploadJob.Status.PROCESSING,
+            Instant.now()) == 0) {
+            return;
+        }
+        final var job = uploadJobRepository.findById(id).orElse(null);
+        if (job == null) {
+            return;
+        }
+
+        final var stagingFile = Path.of(job.getStagingFile());
+        try (InputStream inputStream = Files.newInputStream(stagingFile)) {
+            final Consumer<Application> complete = saved -> {
+                job.setApplicationId(saved.getId());
+                update(job, UploadJob.Status.DONE, null);
+            };
+            final var application = job.isNewVersion()
+                ? applicationService.uploadApplicationVersion(job.getName(), job.getDescription(), inputStream,
+                    complete)
+                : applicationService.uploadApplication(job.getName(), job.getCategoryId(), job.getDescription(),
+                    inputStream, complete);
+            log.debug("Upload job {} is done, application {} is saved", id, application.getId());
+        } catch (IOException | RuntimeException e) {
+            // job committed as done together with its application stays done
+            if (uploadJobRepository.findById(id).map(UploadJob::getStatus).orElse(null) == UploadJob.Status.DONE) {
+                log.error("Upload job {} is done, but failed after its application is saved", id, e);
+            } else {
+                job.setApplicationId(null);
+                update(job, UploadJob.Status.FAILED, Objects.requireNonNullElse(e.getMessage(), e.toString()));
+                log.debug("Upload job {} is failed", id, e);
+            }
+        }
+
+        try {
+            Files.deleteIfExists(stagingFile);
+        } catch (IOException e) {
+            log.warn("Staging file {} isn't deleted", stagingFile, e);
+        }
+    }
+
+    private void update(final UploadJob job, final UploadJob.Status status, final String errorMessage) {
+        job.setStatus(status);
+        job.setErrorMessage(errorMessage == null ? null
+            : errorMessage.substring(0, Math.min(errorMessage.length(), UploadJob.MAX_ERROR_MESSAGE_LENGTH)));
+        job.setUpdatedAt(Instant.now());
+        uploadJobRepository.save(job);
+    }
+}
@@ -1,172 +1,315 @@
 package com.alexandervov.service;
 
+import com.alexandervov.config.StoreProperties;
 import com.alexandervov.entity.Application;
+import com.alexandervov.storage.BlobStore;
+import com.alexandervov.storage.BlobWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.io.BufferedReader;
-import java.io.File;
-import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.Base64;
-import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
-import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
 
+/**
+ * Single-pass ingest of application archives.
+ * Archive stream is read once: bytes are hashed and written to blob store while manifest and pictures
+ * are extracted on the fly, so heap usage doesn't depend on archive size.
+ * Declared pictures are decoded after archive is read and stored as icons of exact sizes.
+ * Archives with manifest over {@value #MAX_MANIFEST_SIZE} bytes or with declared pictures which can't be read
+ * are rejected instead of being ingested partially or with default icons.
+ */
 @Slf4j
 @Service
-@Transactional
+@RequiredArgsConstructor
 public class ZipFileService {
 
-    private byte[] defaultImg128Base64;
-    private byte[] defaultImg512Base64;
+    private static final int MAX_MANIFEST_SIZE = 64 * 1024;
+    private static final int SKIP_BUFFER_SIZE = 8 * 1024;
+    private static final Set<String> PICTURE_EXTENSIONS = Set.of(".png", ".jpg", ".jpeg", ".gif", ".webp");
 
-    /**
-     * Method for prepare temp zip file for uploaded application.
-     * @param fileBytes uploaded zip file content
-     * @param name file name
-     * @return prepared zip file
-     * @throws IOException could be occurred during processing uploaded file
-     */
-    public ZipFile prepareTempZipFile(final byte[] fileBytes, final String name) throws IOException {
-        File tempFile = new File(name);
-
-        try (OutputStream os = new FileOutputStream(tempFile)) {
-            os.write(fileBytes);
-            return new ZipFile(new File(name));
-        }
-    }
+    private final BlobStore blobStore;
+    private final StoreProperties storeProperties;
+    private final ImageProcessor imageProcessor;
+    private final MeterRegistry meterRegistry;
+    private int maxPictureSize;
+    private String defaultImg128Hash;
+    private String defaultImg512Hash;
 
     /**
-     * Mwethod for removing temp created zip file during upload.
-     * @param name of temp zip file
-     * @throws IOException could be occurred during file deleting process
+     * Pictures are read into byte arrays, so their max size is checked on startup.
      */
-    public void removeTempZipFile(final String name) throws IOException {
-        Files.delete(Path.of(name));
+    @PostConstruct
+    public void init() {
+        final long size = storeProperties.getUpload().getMaxPictureSize().toBytes();
+        if (size <= 0 || size >= Integer.MAX_VALUE) {
+            throw new IllegalStateException("store.upload.max-picture-size must be between 1 byte and 2GB, but is "
+                + storeProperties.getUpload().getMaxPictureSize());
+        }
+        maxPictureSize = (int) size;
     }
 
     /**
-     * Method use for db content initiation
-     * @param zipFile with an application content
+     * Method for initialization application from zip archive stream.
+     * Every entry is visited once, pictures declared by manifest are looked up by entry name.
+     * Pictures met in archive while manifest doesn't declare them yet are buffered in memory,
+     * their total size is limited by twice store.upload.max-picture-size. Archive is rejected when a picture
+     * which didn't fit into the buffer turns out to be declared.
+     *
+     * @param inputStream zip archive with an application content, stream isn't closed
      * @param application prepared instance for initialization
      * @return completely initialized instance
-     * @throws IOException could be occurred during reading file
+     * @throws IOException could be occurred during reading archive or storing its content
      */
-    public Application initApplicationFromZip(final ZipFile zipFile, final Application application) throws IOException {
-        if (Objects.isNull(application)) {
-            throw new ZipException("Required txt file isn't exist");
+    public Application initApplicationFromZip(final InputStream inputStream,
+                                              final Application application) throws IOException {
+        final var upload = storeProperties.getUpload();
+        final var manifest = new ApplicationManifest();
+        final Map<String, byte[]> bufferedPictures = new HashMap<>();
+        final Map<String, byte[]> declaredPictures = new HashMap<>();
+        final Set<String> skippedPictures = new HashSet<>();
+        long bufferedSize = 0;
+        long manifestNanos = 0;
+        final long readStart = System.nanoTime();
+
+        try (BlobWriter packageWriter = blobStore.newBlob()) {
+            final var teeInputStream = new TeeInputStream(inputStream, packageWriter);
+            final var zipInputStream = new ZipInputStream(teeInputStream);
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                final var entryName = zipEntry.getName();
+                if (zipEntry.isDirectory()) {
+                    continue;
+                }
+
+                if (isManifest(entryName)) {
+                    final long manifestStart = System.nanoTime();
+                    final var content = zipInputStream.readNBytes(MAX_MANIFEST_SIZE + 1);
+                    if (content.length > MAX_MANIFEST_SIZE) {
+                        throw new ZipException("Txt file " + entryName + " exceeds " + MAX_MANIFEST_SIZE + " bytes");
+                    }
+                    if (manifest.merge(content, upload.getManifestCharset())) {
+                        takeBufferedPictures(manifest, bufferedPictures, declaredPictures);
+                    }
+                    manifestNanos += System.nanoTime() - manifestStart;
+                } else if (isDeclaredPicture(manifest, entryName)) {
+                    declaredPictures.put(entryName, readPicture(entryName, zipInputStream));
+                } else if (manifest.isPictureUndeclared() && isPicture(entryName)) {
+                    final var picture = zipInputStream.readNBytes(maxPictureSize + 1);
+                    if (picture.length <= maxPictureSize && bufferedSize + picture.length <= 2L * maxPictureSize) {
+                        bufferedPictures.put(entryName, picture);
+                        bufferedSize += picture.length;
+                    } else {
+                        skippedPictures.add(entryName);
+                    }
+                }
+            }
+
+            if (!manifest.isFound()) {
+                throw new ZipException("Required txt file isn't exist");
+            }
+            checkSkippedPictures(manifest, declaredPictures, skippedPictures);
+
+            teeInputStream.transferTo(OutputStream.nullOutputStream());
+            final var storedPackage = packageWriter.commit();
+            application.setPackageName(manifest.getPackageName());
+            application.setPictureName128(manifest.getPictureName128());
+            application.setPictureName512(manifest.getPictureName512());
+            application.setPackageHash(storedPackage.hash());
+            application.setPackageSize(storedPackage.size());
+        } finally {
+            record("manifest", manifestNanos);
+            record("package", System.nanoTime() - readStart - manifestNanos);
         }
 
-        fillApplicationFromTextFile(zipFile, application);
-        application.setPackageContent(Files.readAllBytes(Path.of(zipFile.getName())));
+        final long picturesStart = System.nanoTime();
+        try {
+            storePictures(application, declaredPictures.get(manifest.getPictureName128()),
+                declaredPictures.get(manifest.getPictureName512()));
+            checkAndSetImg(application);
+        } finally {
+            record("pictures", System.nanoTime() - picturesStart);
+        }
+        return application;
+    }
 
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
+    /**
+     * Method for recording duration of ingest phase: package reading and storing, manifest parsing
+     * or pictures decoding, resizing and storing.
+     */
+    private void record(final String phase, final long nanos) {
+        Timer.builder("store.upload.ingest")
+            .description("Duration of application archive ingest phases")
+            .tag("phase", phase)
+            .register(meterRegistry)
+            .record(nanos, TimeUnit.NANOSECONDS);
+    }
 
-        if (!application.getPictureName128().isEmpty()) {
-            while (entries.hasMoreElements()) {
-                var zipEntry = entries.nextElement();
-                if (application.getPictureName128().equals(zipEntry.getName())) {
-                    application.setPicture128Base64Bytes(
-                        prepareBase64Bytes(zipFile.getInputStream(zipEntry)
-                            .readAllBytes()));
-                    break;
-                }
+    private void takeBufferedPictures(final ApplicationManifest manifest, final Map<String, byte[]> bufferedPictures,
+                                      final Map<String, byte[]> declaredPictures) {
+        final var iterator = bufferedPictures.entrySet().iterator();
+        while (iterator.hasNext()) {
+            final var picture = iterator.next();
+            if (isDeclaredPicture(manifest, picture.getKey())) {
+                declaredPictures.put(picture.getKey(), picture.getValue());
+                iterator.remove();
             }
         }
 
-        entries = zipFile.entries();
-        if (!application.getPictureName512().isEmpty()) {
-            while (entries.hasMoreElements()) {
-                var zipEntry = entries.nextElement();
-                if (application.getPictureName512().equals(zipEntry.getName())) {
-                    application.setPicture512Base64Bytes(
-                        prepareBase64Bytes(zipFile.getInputStream(zipEntry)
-                            .readAllBytes()));
-                    break;
-                }
+        if (!manifest.isPictureUndeclared()) {
+            bufferedPictures.clear();
+        }
+    }
+
+    /**
+     * Method for rejecting archive whose declared picture was met before txt file and wasn't buffered.
+     */
+    private void checkSkippedPictures(final ApplicationManifest manifest, final Map<String, byte[]> declaredPictures,
+                                      final Set<String> skippedPictures) throws ZipException {
+        for (String pictureName : new String[]{manifest.getPictureName128(), manifest.getPictureName512()}) {
+            if (pictureName != null && !declaredPictures.containsKey(pictureName)
+                && skippedPictures.contains(pictureName)) {
+                throw new ZipException("Picture " + pictureName + " precedes txt file and exceeds "
+                    + maxPictureSize + " bytes or buffer of pictures before txt file, put txt file first");
             }
         }
+    }
 
-        checkAndSetImg(application);
-        return application;
+    private byte[] readPicture(final String entryName, final InputStream inputStream) throws IOException {
+        final var picture = inputStream.readNBytes(maxPictureSize + 1);
+        if (picture.length > maxPictureSize) {
+            throw new ZipException("Picture " + entryName + " exceeds " + maxPictureSize + " bytes");
+        }
+        return picture;
+    }
+
+    /**
+     * Method for storing icons resized to exact sizes and recompressed,
+     * small icon is derived from large picture when archive contains only large one.
+     */
+    private void storePictures(final Application application, final byte[] picture128,
+                               final byte[] picture512) throws IOException {
+        final var decoded512 = picture512 == null ? null
+            : imageProcessor.decode(picture512, application.getPictureName512());
+        final var decoded128 = picture128 == null ? decoded512
+            : imageProcessor.decode(picture128, application.getPictureName128());
+
+        if (decoded512 != null) {
+            application.setPicture512Hash(blobStore.put(
+                imageProcessor.toIcon(decoded512, picture512, IconService.LARGE_ICON_SIZE)).hash());
+        }
+        if (decoded128 != null) {
+            application.setPicture128Hash(blobStore.put(
+                imageProcessor.toIcon(decoded128, picture128, IconService.SMALL_ICON_SIZE)).hash());
+        }
+    }
+
+    private boolean isDeclaredPicture(final ApplicationManifest manifest, final String entryName) {
+        return entryName.equals(manifest.getPictureName128()) || entryName.equals(manifest.getPictureName512());
+    }
+
+    private boolean isManifest(final String entryName) {
+        return entryName.toLowerCase(Locale.ROOT).endsWith(".txt");
+    }
+
+    private boolean isPicture(final String entryName) {
+        final var lowerCaseName = entryName.toLowerCase(Locale.ROOT);
+        return PICTURE_EXTENSIONS.stream().anyMatch(lowerCaseName::endsWith);
     }
 
     private void checkAndSetImg(final Application application) throws IOException {
-        if (Objects.isNull(application.getPicture128Base64Bytes())) {
-            application.setPicture128Base64Bytes(getDefaultImg128());
+        if (Objects.isNull(application.getPicture128Hash())) {
+            application.setPicture128Hash(getDefaultImg128());
         }
 
-        if (Objects.isNull(application.getPicture512Base64Bytes())) {
-            application.setPicture512Base64Bytes(getDefaultImg512());
+        if (Objects.isNull(application.getPicture512Hash())) {
+            application.setPicture512Hash(getDefaultImg512());
         }
     }
 
-    private byte[] getDefaultImg128() throws IOException {
-        if (defaultImg128Base64 == null) {
-            defaultImg128Base64 = Base64.getEncoder()
-                .encode(new ClassPathResource("img/default_img_128.png")
-                    .getInputStream()
-                    .readAllBytes());
+    private String getDefaultImg128() throws IOException {
+        if (defaultImg128Hash == null) {
+            defaultImg128Hash = storeDefaultImg("img/default_img_128.png");
         }
-        return defaultImg128Base64;
+        return defaultImg128Hash;
     }
 
-    private byte[] getDefaultImg512() throws IOException {
-        if (defaultImg512Base64 == null) {
-            defaultImg512Base64 = Base64.getEncoder()
-                .encode(new ClassPathResource("img/default_img_512.png")
-                    .getInputStream()
-                    .readAllBytes());
+    private String getDefaultImg512() throws IOException {
+        if (defaultImg512Hash == null) {
+            defaultImg512Hash = storeDefaultImg("img/default_img_512.png");
         }
-        return defaultImg512Base64;
+        return defaultImg512Hash;
     }
 
-    private byte[] prepareBase64Bytes(final byte[] bytes) {
-        final var encoder = Base64.getEncoder();
-        return encoder.encode(bytes);
+    private String storeDefaultImg(final String path) throws IOException {
+        try (InputStream inputStream = new ClassPathResource(path).getInputStream()) {
+            return blobStore.put(inputStream).hash();
+        }
     }
 
-    private void fillApplicationFromTextFile(final ZipFile zipFile, final Application application) throws IOException {
-        Enumeration<? extends ZipEntry> entries = zipFile.entries();
-        while (entries.hasMoreElements()) {
-            ZipEntry zipEntry = entries.nextElement();
-            if (zipEntry.getName().endsWith(".txt")) {
-                var value = getValueFromTextFile(zipFile.getInputStream(zipEntry));
-                application.setPackageName(value.get("package"));
-                application.setPictureName128(value.get("picture_128"));
-                application.setPictureName512(value.get("picture_512"));
-                break;
+    /**
+     * Stream copying every read or skipped byte into another stream.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream copy;
+
+        private TeeInputStream(final InputStream inputStream, final OutputStream copy) {
+            super(inputStream);
+            this.copy = copy;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final int b = super.read();
+            if (b != -1) {
+                copy.write(b);
             }
+            return b;
         }
-    }
 
-    private Map<String, String> getValueFromTextFile(final InputStream inputStream) {
+        @Override
+        public int read(final byte[] bytes, final int off, final int len) throws IOException {
+            final int read = super.read(bytes, off, len);
+            if (read > 0) {
+                copy.write(bytes, off, read);
+            }
+            return read;
+        }
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream));
-        var keyValueMap = new HashMap<String, String>();
-        try {
-            while (reader.ready()) {
-                String line = reader.readLine();
-                final var keyValueArray = line.split(":");
-                if (keyValueArray.length > 1) {
-                    keyValueMap.put(keyValueArray[0].trim(), keyValueArray[1].trim());
+        @Override
+        public long skip(final long n) throws IOException {
+            final var buffer = new byte[(int) Math.min(n, SKIP_BUFFER_SIZE)];
+            long skipped = 0;
+            while (skipped < n) {
+                final int read = read(buffer, 0, (int) Math.min(buffer.length, n - skipped));
+                if (read < 0) {
+                    break;
                 }
+                skipped += read;
             }
-            return keyValueMap;
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
         }
     }
 }
@@ -0,0 +1,95 @@
+package com.alexandervov.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage of binary objects.
+ * Objects are identified by SHA-256 of their content, so identical objects are stored only once.
+ */
+public interface BlobStore {
+
+    /**
+     * Method for creating writer of new blob, content is hashed while it is written.
+     *
+     * @return writer, blob is stored only after {@link BlobWriter#commit()}
+     * @throws IOException could be occurred during creating temp file
+     */
+    BlobWriter newBlob() throws IOException;
+
+    /**
+     * Method for checking existing blob.
+     *
+     * @param hash blob hash
+     * @return true if blob is stored
+     */
+    boolean exists(String hash);
+
+    /**
+     * Method for getting blob size.
+     *
+     * @param hash blob hash
+     * @return size in bytes
+     * @throws IOException could be occurred if blob doesn't exist
+     */
+    long size(String hash) throws IOException;
+
+    /**
+     * Method for reading whole blob, should be used only for small blobs like pictures.
+     *
+     * @param hash blob hash
+     * @return blob content
+     * @throws IOException could be occurred during reading blob
+     */
+    byte[] read(String hash) throws IOException;
+
+    /**
+     * Method for streaming part of blob without loading it into memory.
+     *
+     * @param hash         blob hash
+     * @param offset       first byte position
+     * @param length       quantity of bytes
+     * @param outputStream target stream
+     * @throws IOException could be occurred during reading blob or writing stream
+     */
+    void write(String hash, long offset, long length, OutputStream outputStream) throws IOException;
+
+    /**
+     * Method for getting local file of blob, used for zero-copy transfer.
+     *
+     * @param hash blob hash
+     * @return path of file if blob is stored on local filesystem
+     */
+    Optional<Path> localPath(String hash);
+
+    /**
+     * Method for storing blob from stream.
+     *
+     * @param inputStream blob content
+     * @return stored blob
+     * @throws IOException could be occurred during reading stream or storing blob
+     */
+    default StoredBlob put(final InputStream inputStream) throws IOException {
+        try (BlobWriter writer = newBlob()) {
+            inputStream.transferTo(writer);
+            return writer.commit();
+        }
+    }
+
+    /**
+     * Method for storing blob from byte array.
+     *
+     * @param content blob content
+     * @return stored blob
+     * @throws IOException could be occurred during storing blob
+     */
+    default StoredBlob put(final byte[] content) throws IOException {
+        try (BlobWriter writer = newBlob()) {
+            writer.write(content);
+            return writer.commit();
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.alexandervov.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Stream for writing new blob into temp file while calculating SHA-256 of its content.
+ * Temp file is passed to the store on commit and removed on close.
+ */
+public class BlobWriter extends OutputStream {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final Path tempFile;
+    private final Committer committer;
+    private final DigestOutputStream outputStream;
+    private long size;
+    private boolean closed;
+    private StoredBlob storedBlob;
+
+    public BlobWriter(final Path tempFile, final Committer committer) throws IOException {
+        this.tempFile = tempFile;
+        this.committer = committer;
+        this.outputStream = new DigestOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE), sha256());
+    }
+
+    @Override
+    public void write(final int b) throws IOException {
+        outputStream.write(b);
+        size++;
+    }
+
+    @Override
+    public void write(final byte[] bytes, final int off, final int len) throws IOException {
+        outputStream.write(bytes, off, len);
+        size += len;
+    }
+
+    /**
+     * Method for finishing writing and storing blob, repeated calls return the same blob.
+     *
+     * @return stored blob
+     * @throws IOException could be occurred during storing blob
+     */
+    public StoredBlob commit() throws IOException {
+        if (storedBlob == null) {
+            closeStream();
+            final var hash = HexFormat.of().formatHex(outputStream.getMessageDigest().digest());
+            committer.commit(tempFile, hash, size);
+            storedBlob = new StoredBlob(hash, size);
+        }
+        return storedBlob;
+    }
+
+    /**
+     * Quantity of bytes written so far.
+     *
+     * @return size in bytes
+     */
+    public long getSize() {
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            closeStream();
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void closeStream() throws IOException {
+        if (!closed) {
+            closed = true;
+            outputStream.close();
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Store specific action for persisting temp file of written blob.
+     */
+    @FunctionalInterface
+    public interface Committer {
+        void commit(Path tempFile, String hash, long size) throws IOException;
+    }
+}
@@ -0,0 +1,150 @@
+package com.alexandervov.storage;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Blob;
+import java.util.Optional;
+
+/**
+ * Blob store keeping objects in blob_object table, content is read and written as JDBC streams
+ * (large objects on PostgreSQL), so objects are never materialized in memory.
+ * The store is used by Flyway migrations, so it has own JdbcTemplate and transaction manager
+ * instead of beans initialized after Flyway.
+ * Content is read in read-only transactions, which go to a read replica when they are configured. A blob not
+ * replicated yet is read again from primary, a missing or truncated blob fails the read instead of
+ * leaving the response short.
+ */
+@Service
+@ConditionalOnProperty(prefix = "store.blob-store", name = "type", havingValue = "database")
+public class DatabaseBlobStore implements BlobStore {
+
+    private static final String EXISTS_SQL = "SELECT COUNT(*) FROM blob_object WHERE hash = ?";
+    private static final String SIZE_SQL = "SELECT content_size FROM blob_object WHERE hash = ?";
+    private static final String CONTENT_SQL = "SELECT content FROM blob_object WHERE hash = ?";
+    private static final String INSERT_SQL = "INSERT INTO blob_object (hash, content_size, content) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    public DatabaseBlobStore(final DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        final var transactionManager = new DataSourceTransactionManager(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public BlobWriter newBlob() throws IOException {
+        return new BlobWriter(Files.createTempFile("blob", ".tmp"), this::store);
+    }
+
+    @Override
+    public boolean exists(final String hash) {
+        final Integer count = jdbcTemplate.queryForObject(EXISTS_SQL, Integer.class, hash);
+        return count != null && count > 0;
+    }
+
+    @Override
+    public long size(final String hash) throws IOException {
+        try {
+            final Long size = jdbcTemplate.queryForObject(SIZE_SQL, Long.class, hash);
+            return size == null ? 0 : size;
+        } catch (EmptyResultDataAccessException e) {
+            throw new FileNotFoundException("Blob " + hash + " doesn't exist");
+        }
+    }
+
+    @Override
+    public byte[] read(final String hash) throws IOException {
+        final var outputStream = new ByteArrayOutputStream();
+        write(hash, 0, size(hash), outputStream);
+        return outputStream.toByteArray();
+    }
+
+    @Override
+    public void write(final String hash, final long offset, final long length,
+                      final OutputStream outputStream) throws IOException {
+        if (length <= 0) {
+            return;
+        }
+
+        Long transferred = transfer(readOnlyTransactionTemplate, hash, offset, length, outputStream);
+        if (transferred == null) {
+            // blob could be committed on primary but not replicated yet
+            transferred = transfer(transactionTemplate, hash, offset, length, outputStream);
+        }
+        if (transferred == null) {
+            throw new FileNotFoundException("Blob " + hash + " doesn't exist");
+        }
+        if (transferred < length) {
+            throw new EOFException("Blob " + hash + " has " + transferred + " of " + length + " bytes from "
+                + offset);
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(final String hash) {
+        return Optional.empty();
+    }
+
+    /**
+     * @return quantity of transferred bytes, null if blob isn't found
+     */
+    private Long transfer(final TransactionTemplate template, final String hash, final long offset,
+                          final long length, final OutputStream outputStream) throws IOException {
+        try {
+            return template.execute(status -> jdbcTemplate.query(CONTENT_SQL, rs -> {
+                if (!rs.next()) {
+                    return null;
+                }
+                final Blob blob = rs.getBlob(1);
+                if (blob == null) {
+                    return 0L;
+                }
+                try (InputStream inputStream = blob.getBinaryStream(offset + 1, length)) {
+                    return inputStream.transferTo(outputStream);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                } finally {
+                    blob.free();
+                }
+            }, hash));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void store(final Path tempFile, final String hash, final long size) throws IOException {
+        if (exists(hash)) {
+            return;
+        }
+
+        try (InputStream inputStream = Files.newInputStream(tempFile)) {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(INSERT_SQL, ps -> {
+                ps.setString(1, hash);
+                ps.setLong(2, size);
+                ps.setBlob(3, inputStream, size);
+            }));
+        } catch (DuplicateKeyException ignored) {
+            // the same content has been stored concurrently
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.alexandervov.storage;
+
+import com.alexandervov.config.StoreProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Optional;
+
+/**
+ * Blob store keeping objects on local filesystem under sharded layout {@code ab/cd/abcd...}.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "store.blob-store", name = "type", havingValue = "filesystem", matchIfMissing = true)
+public class FileSystemBlobStore implements BlobStore {
+
+    private static final String TEMP_DIRECTORY = "tmp";
+
+    private final Path root;
+    private final Path tempDirectory;
+
+    public FileSystemBlobStore(final StoreProperties storeProperties) throws IOException {
+        this.root = storeProperties.getBlobStore().getDirectory().toAbsolutePath().normalize();
+        this.tempDirectory = Files.createDirectories(root.resolve(TEMP_DIRECTORY));
+        log.info("Filesystem blob store is located in {}", root);
+    }
+
+    @Override
+    public BlobWriter newBlob() throws IOException {
+        return new BlobWriter(Files.createTempFile(tempDirectory, "blob", ".tmp"), this::store);
+    }
+
+    @Override
+    public boolean exists(final String hash) {
+        return Files.exists(resolve(hash));
+    }
+
+    @Override
+    public long size(final String hash) throws IOException {
+        return Files.size(resolve(hash));
+    }
+
+    @Override
+    public byte[] read(final String hash) throws IOException {
+        return Files.readAllBytes(resolve(hash));
+    }
+
+    @Override
+    public void write(final String hash, final long offset, final long length,
+                      final OutputStream outputStream) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(hash), StandardOpenOption.READ)) {
+            final WritableByteChannel target = Channels.newChannel(outputStream);
+            long position = offset;
+            long remaining = length;
+            while (remaining > 0) {
+                final long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    throw new EOFException("Blob " + hash + " is shorter than " + (offset + length) + " bytes");
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    @Override
+    public Optional<Path> localPath(final String hash) {
+        final var path = resolve(hash);
+        return Files.exists(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    private void store(final Path tempFile, final String hash, final long size) throws IOException {
+        final var target = resolve(hash);
+        if (Files.exists(target)) {
+            return;
+        }
+
+        Files.createDirectories(target.getParent());
+        try {
+            Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            try {
+                Files.move(tempFile, target);
+            } catch (FileAlreadyExistsException ignored) {
+                // the same content has been stored concurrently
+            }
+        } catch (FileAlreadyExistsException ignored) {
+            // the same content has been stored concurrently
+        }
+    }
+
+    private Path resolve(final String hash) {
+        if (hash.length() < 4) {
+            throw new IllegalArgumentException("Wrong blob hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+}
@@ -0,0 +1,10 @@
+package com.alexandervov.storage;
+
+/**
+ * Reference to stored blob.
+ *
+ * @param hash hex encoded SHA-256 of blob content
+ * @param size blob size in bytes
+ */
+public record StoredBlob(String hash, long size) {
+}
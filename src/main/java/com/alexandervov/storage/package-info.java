@@ -0,0 +1,9 @@
+/**
+ * This package contains content-addressed blob store abstraction with filesystem and db implementations
+ * used for application packages and pictures.
+ *
+ * @author Alexander Voyuev
+ * @version 1.0
+ */
+
+package com.alexandervov.storage;
@@ -0,0 +1,183 @@
+package com.alexandervov.view;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.service.ApplicationService;
+import com.alexandervov.service.CatalogChangedEvent;
+import com.alexandervov.service.CountersCompactedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.thymeleaf.ITemplateEngine;
+import org.thymeleaf.context.WebContext;
+import org.thymeleaf.web.servlet.JakartaServletWebApplication;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Rendered catalog fragments shared by all users: popular applications, used categories,
+ * category listing pages and application details. Fragments are cached until catalog is changed,
+ * user specific parts of pages are rendered per request around them.
+ * Fragments are rendered in {@link #LOCALE} whatever locale the first requester has, so cached html is the same
+ * for every user.
+ */
+@Service
+public class CatalogFragments {
+
+    private static final String TEMPLATE = "fragments/catalog";
+    private static final String TOP_KEY = "top";
+    private static final String CATEGORIES_KEY = "categories";
+    private static final String CATEGORY_KEY_PREFIX = "category:";
+    private static final String APPLICATION_KEY_PREFIX = "app:";
+    private static final int ETAG_BYTES = 16;
+    private static final Locale LOCALE = Locale.ENGLISH;
+
+    private final ApplicationService applicationService;
+    private final ITemplateEngine templateEngine;
+    private final FragmentCache cache;
+
+    public CatalogFragments(final ApplicationService applicationService,
+                            final ITemplateEngine templateEngine,
+                            final StoreProperties storeProperties) {
+        this.applicationService = applicationService;
+        this.templateEngine = templateEngine;
+        this.cache = new FragmentCache(storeProperties.getFragmentCache().getMaxEntries(),
+            storeProperties.getFragmentCache().getTtl());
+    }
+
+    /**
+     * @param webRequest current request
+     * @return html of popular applications block
+     */
+    public String getTop(final ServletWebRequest webRequest) {
+        return cache.get(TOP_KEY, () -> render(webRequest, TOP_KEY,
+            Map.of("applications", applicationService.getSortedTopApps())));
+    }
+
+    /**
+     * @param webRequest current request
+     * @return html of categories navigation
+     */
+    public String getCategories(final ServletWebRequest webRequest) {
+        return cache.get(CATEGORIES_KEY, () -> render(webRequest, CATEGORIES_KEY,
+            Map.of("categories", applicationService.getCategoriesByExistingApplications())));
+    }
+
+    /**
+     * @param webRequest current request
+     * @param categoryId category of listed applications
+     * @param cursor     page of listing, null for the first page
+     * @return html of category listing page
+     */
+    public String getCategoryPage(final ServletWebRequest webRequest, final int categoryId, final String cursor) {
+        final var key = CATEGORY_KEY_PREFIX + categoryId + ":" + Objects.requireNonNullElse(cursor, "");
+        return cache.get(key, () -> {
+            final var page = applicationService.getApplicationsPage(categoryId, cursor, null);
+            final var variables = new HashMap<String, Object>();
+            variables.put("categoryId", categoryId);
+            variables.put("appsByCategory", page.getItems());
+            variables.put("nextCursor", page.getNextCursor());
+            return render(webRequest, "listing", variables);
+        });
+    }
+
+    /**
+     * @param webRequest current request
+     * @param id         application id
+     * @return html of application details
+     * @throws IllegalArgumentException if application isn't exist
+     */
+    public String getDetails(final ServletWebRequest webRequest, final int id) throws IllegalArgumentException {
+        return cache.get(APPLICATION_KEY_PREFIX + id, () -> render(webRequest, "details",
+            Map.of("app", applicationService.getApplicationDaoById(id))));
+    }
+
+    /**
+     * Method for invalidation of fragments showing changed applications.
+     * New applications could change any fragment, other changes invalidate only details of the applications.
+     * Popular and category listings aren't invalidated by every counters flush, they follow compactions.
+     *
+     * @param event catalog change
+     */
+    @EventListener
+    public void onCatalogChanged(final CatalogChangedEvent event) {
+        if (event.structural()) {
+            cache.invalidate(key -> true);
+            return;
+        }
+
+        final Set<String> detailsKeys = new HashSet<>();
+        event.applicationIds().forEach(id -> detailsKeys.add(APPLICATION_KEY_PREFIX + id));
+        cache.invalidate(detailsKeys::contains);
+    }
+
+    /**
+     * Method for invalidation of popular and category listings reordered by compacted download counters.
+     * Runs after the leaderboard snapshot is synchronized with the compacted counters.
+     */
+    @EventListener(CountersCompactedEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onCountersCompacted() {
+        cache.invalidate(key -> key.equals(TOP_KEY) || key.startsWith(CATEGORY_KEY_PREFIX));
+    }
+
+    /**
+     * Method for building weak ETag of a page composed from fragments and user specific values.
+     * ETag is the first {@value #ETAG_BYTES} bytes of SHA-256 of the parts, so changed pages don't collide
+     * with cached ones in practice.
+     *
+     * @param parts fragments html and user specific values shown on page, nested arrays are digested by elements
+     * @return weak ETag
+     */
+    public static String weakETag(final Object... parts) {
+        final var digest = sha256();
+        update(digest, parts);
+        return "W/\"" + HexFormat.of().formatHex(digest.digest(), 0, ETAG_BYTES) + "\"";
+    }
+
+    public FragmentCache getCache() {
+        return cache;
+    }
+
+    private static void update(final MessageDigest digest, final Object part) {
+        // lengths are digested before values, so different splits of the same text give different ETags
+        if (part instanceof Object[] array) {
+            digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(-1 - array.length).array());
+            for (Object element : array) {
+                update(digest, element);
+            }
+            return;
+        }
+        final var bytes = String.valueOf(part).getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        digest.update(bytes);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String render(final ServletWebRequest webRequest, final String fragment,
+                          final Map<String, Object> variables) {
+        final var exchange = JakartaServletWebApplication
+            .buildApplication(webRequest.getRequest().getServletContext())
+            .buildExchange(webRequest.getRequest(), Objects.requireNonNull(webRequest.getResponse()));
+        final var context = new WebContext(exchange, LOCALE, variables);
+        return templateEngine.process(TEMPLATE, Set.of(fragment), context);
+    }
+}
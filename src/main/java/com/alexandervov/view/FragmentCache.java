@@ -0,0 +1,85 @@
+package com.alexandervov.view;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of rendered html fragments with LRU eviction and time to live.
+ * Fragments are rendered outside the lock, rendering started before an invalidation isn't cached.
+ */
+public class FragmentCache {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LinkedHashMap<String, Entry> entries;
+    private long generation;
+    private long hits;
+    private long misses;
+
+    public FragmentCache(final int maxEntries, final Duration ttl) {
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                return size() > FragmentCache.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Method for getting cached fragment or rendering and caching it.
+     *
+     * @param key      fragment key
+     * @param renderer renders fragment html
+     * @return fragment html
+     */
+    public String get(final String key, final Supplier<String> renderer) {
+        final long renderGeneration;
+        synchronized (this) {
+            final var entry = entries.get(key);
+            if (entry != null && System.nanoTime() - entry.createdAt() < ttlNanos) {
+                hits++;
+                return entry.html();
+            }
+            misses++;
+            renderGeneration = generation;
+        }
+
+        final var html = renderer.get();
+        synchronized (this) {
+            if (renderGeneration == generation) {
+                entries.put(key, new Entry(html, System.nanoTime()));
+            }
+        }
+        return html;
+    }
+
+    /**
+     * Method for removing fragments.
+     *
+     * @param keyFilter selects keys of removed fragments
+     */
+    public synchronized void invalidate(final Predicate<String> keyFilter) {
+        generation++;
+        entries.keySet().removeIf(keyFilter);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getHitCount() {
+        return hits;
+    }
+
+    public synchronized long getMissCount() {
+        return misses;
+    }
+
+    private record Entry(String html, long createdAt) {
+    }
+}
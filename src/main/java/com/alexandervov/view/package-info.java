@@ -0,0 +1,8 @@
+/**
+ * This package contains server side rendering helpers: rendered catalog fragments and their cache.
+ *
+ * @author Alexander Voyuev
+ * @version 1.0
+ */
+
+package com.alexandervov.view;
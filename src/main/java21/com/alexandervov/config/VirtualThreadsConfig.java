@@ -0,0 +1,45 @@
+package com.alexandervov.config;
+
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Virtual threads for Tomcat request handling, application task executor and upload jobs.
+ * Compiled only by java21 maven profile and enabled by virtual_threads spring profile.
+ * Concurrency of db access is limited by Hikari pool instead of Tomcat threads,
+ * pool is sized in application-virtual_threads.properties.
+ */
+@Configuration
+@Profile("virtual_threads")
+public class VirtualThreadsConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadsProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+        AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(Executors.newVirtualThreadPerTaskExecutor());
+    }
+
+    /**
+     * Upload jobs run on virtual threads, their concurrency is still capped by store.upload.concurrency.
+     *
+     * @return factory of virtual upload threads
+     */
+    @Bean
+    public ThreadFactory uploadThreadFactory() {
+        return Thread.ofVirtual().name("upload-", 0).factory();
+    }
+}
@@ -0,0 +1,31 @@
+-- Downloads per application and UTC hour, written when a node rolls up its in-memory minute buckets
+CREATE TABLE download_hourly
+(
+    application_id INTEGER                  NOT NULL,
+    bucket_start   TIMESTAMP WITH TIME ZONE NOT NULL,
+    downloads      BIGINT                   NOT NULL,
+    PRIMARY KEY (application_id, bucket_start)
+);
+
+CREATE INDEX download_hourly_bucket_idx ON download_hourly (bucket_start);
+
+-- Downloads per application and UTC day, recomputed from download_hourly
+CREATE TABLE download_daily
+(
+    application_id INTEGER                  NOT NULL,
+    bucket_start   TIMESTAMP WITH TIME ZONE NOT NULL,
+    downloads      BIGINT                   NOT NULL,
+    PRIMARY KEY (application_id, bucket_start)
+);
+
+CREATE INDEX download_daily_bucket_idx ON download_daily (bucket_start);
+
+-- Single row locked by rollup transaction, so nodes roll up one at a time
+CREATE TABLE download_rollup
+(
+    id           INTEGER                  NOT NULL,
+    rolled_up_at TIMESTAMP WITH TIME ZONE,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO download_rollup (id, rolled_up_at) VALUES (1, NULL);
@@ -0,0 +1,5 @@
+-- Node keeping the staging file of the job, only that node processes and resumes the job;
+-- jobs accepted before the column existed have no node and are resumed by a node having their staging file
+ALTER TABLE upload_job ADD COLUMN node VARCHAR(255);
+
+CREATE INDEX upload_job_node_status_idx ON upload_job (node, status);
@@ -0,0 +1,2 @@
+-- superseded by application_listing_idx of V5, listings are ordered by download counter and id
+DROP INDEX application_popularity_idx;
@@ -0,0 +1,22 @@
+-- package content is moved from application into its own table
+CREATE TABLE application_package
+(
+    id      INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    content BLOB,
+    PRIMARY KEY (id)
+);
+
+-- every application gets the package with its own id, large objects are referenced by the new table
+INSERT INTO application_package (id, content) SELECT id, package_content FROM application;
+ALTER TABLE application_package ALTER COLUMN id RESTART WITH (SELECT COALESCE(MAX(id), 0) + 1 FROM application_package);
+
+ALTER TABLE application ADD COLUMN package_id INTEGER;
+UPDATE application SET package_id = id;
+ALTER TABLE application ALTER COLUMN package_id SET NOT NULL;
+ALTER TABLE application ADD CONSTRAINT application_package_uk UNIQUE (package_id);
+ALTER TABLE application
+    ADD CONSTRAINT application_package_fk FOREIGN KEY (package_id) REFERENCES application_package (id);
+ALTER TABLE application DROP COLUMN package_content;
+
+-- applications of category are mapped by Application.category instead of a join table
+DROP TABLE category_applications;
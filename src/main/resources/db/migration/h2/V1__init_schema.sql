@@ -0,0 +1,32 @@
+-- schema created by Hibernate before migrations were introduced, existing databases are baselined at this version
+CREATE TABLE category
+(
+    id   INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    name VARCHAR(255),
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE application
+(
+    id                    INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    name                  VARCHAR(255) NOT NULL UNIQUE,
+    package_name          VARCHAR(255),
+    description           VARCHAR(255) NOT NULL,
+    picture_name128       VARCHAR(255),
+    picture_name512       VARCHAR(255),
+    picture128base64bytes BLOB,
+    picture512base64bytes BLOB,
+    package_content       BLOB,
+    category_id           INTEGER      NOT NULL,
+    download_counter      INTEGER      NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT application_category_fk FOREIGN KEY (category_id) REFERENCES category (id)
+);
+
+CREATE TABLE category_applications
+(
+    category_id     INTEGER NOT NULL,
+    applications_id INTEGER NOT NULL UNIQUE,
+    CONSTRAINT category_applications_category_fk FOREIGN KEY (category_id) REFERENCES category (id),
+    CONSTRAINT category_applications_application_fk FOREIGN KEY (applications_id) REFERENCES application (id)
+);
@@ -0,0 +1,3 @@
+ALTER TABLE application_package ADD COLUMN content_size BIGINT;
+UPDATE application_package SET content_size = COALESCE(OCTET_LENGTH(content), 0);
+ALTER TABLE application_package ALTER COLUMN content_size SET NOT NULL;
@@ -0,0 +1,17 @@
+CREATE TABLE upload_job
+(
+    id             VARCHAR(36)              NOT NULL,
+    name           VARCHAR(255)             NOT NULL,
+    category_id    INTEGER                  NOT NULL,
+    description    VARCHAR(255)             NOT NULL,
+    staging_file   VARCHAR(1024)            NOT NULL,
+    status         VARCHAR(16)              NOT NULL,
+    error_message  VARCHAR(1024),
+    application_id INTEGER,
+    created_by     VARCHAR(255),
+    created_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    updated_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE INDEX upload_job_status_idx ON upload_job (status);
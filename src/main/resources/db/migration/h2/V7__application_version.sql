@@ -0,0 +1,32 @@
+-- latest_version points to the version whose package is referenced by application.package_hash
+ALTER TABLE application ADD COLUMN latest_version INTEGER NOT NULL DEFAULT 1;
+
+CREATE TABLE application_version
+(
+    id             INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    application_id INTEGER                  NOT NULL,
+    version        INTEGER                  NOT NULL,
+    package_hash   VARCHAR(64)              NOT NULL,
+    package_size   BIGINT                   NOT NULL,
+    created_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT application_version_uk UNIQUE (application_id, version),
+    CONSTRAINT application_version_application_fk FOREIGN KEY (application_id) REFERENCES application (id)
+);
+
+-- delta_hash is NULL when the delta isn't smaller than the target package
+CREATE TABLE application_delta
+(
+    id             INTEGER GENERATED BY DEFAULT AS IDENTITY,
+    application_id INTEGER                  NOT NULL,
+    from_version   INTEGER                  NOT NULL,
+    to_version     INTEGER                  NOT NULL,
+    delta_hash     VARCHAR(64),
+    delta_size     BIGINT,
+    created_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT application_delta_uk UNIQUE (application_id, from_version),
+    CONSTRAINT application_delta_application_fk FOREIGN KEY (application_id) REFERENCES application (id)
+);
+
+ALTER TABLE upload_job ADD COLUMN new_version BOOLEAN NOT NULL DEFAULT FALSE;
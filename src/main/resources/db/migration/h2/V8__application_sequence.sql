@@ -0,0 +1,4 @@
+-- application ids are allocated by Hibernate pooled optimizer in blocks of 50, so inserts can be batched;
+-- sequence starts above existing ids, the identity default is kept for manual inserts
+CREATE SEQUENCE application_id_seq START WITH 1 INCREMENT BY 50;
+ALTER SEQUENCE application_id_seq RESTART WITH (SELECT COALESCE(MAX(id), 0) + 51 FROM application);
@@ -0,0 +1,20 @@
+-- Downloads recorded by every node, folded into application.download_counter by compaction.
+-- No foreign key, so inserts don't lock application rows.
+CREATE TABLE download_event
+(
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    application_id INTEGER                  NOT NULL,
+    downloads      BIGINT                   NOT NULL,
+    created_at     TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- Single row locked by compaction transaction, so nodes compact one at a time
+CREATE TABLE download_compaction
+(
+    id           INTEGER                  NOT NULL,
+    compacted_at TIMESTAMP WITH TIME ZONE,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO download_compaction (id, compacted_at) VALUES (1, NULL);
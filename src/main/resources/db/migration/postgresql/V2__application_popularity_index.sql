@@ -0,0 +1 @@
+CREATE INDEX application_popularity_idx ON application (download_counter DESC, name);
@@ -0,0 +1,3 @@
+ALTER TABLE application_package ADD COLUMN content_size BIGINT;
+UPDATE application_package SET content_size = COALESCE(length(lo_get(content)), 0);
+ALTER TABLE application_package ALTER COLUMN content_size SET NOT NULL;
@@ -0,0 +1,7 @@
+-- content of the columns is moved into the blob store by V4_1
+ALTER TABLE application DROP CONSTRAINT application_package_fk;
+ALTER TABLE application DROP CONSTRAINT application_package_uk;
+ALTER TABLE application DROP COLUMN package_id;
+ALTER TABLE application DROP COLUMN picture128base64bytes;
+ALTER TABLE application DROP COLUMN picture512base64bytes;
+DROP TABLE application_package;
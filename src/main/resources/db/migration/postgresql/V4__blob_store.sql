@@ -0,0 +1,15 @@
+ALTER TABLE application ADD COLUMN picture128hash VARCHAR(64);
+ALTER TABLE application ADD COLUMN picture512hash VARCHAR(64);
+ALTER TABLE application ADD COLUMN package_hash VARCHAR(64);
+ALTER TABLE application ADD COLUMN package_size BIGINT;
+
+-- legacy content columns are kept until V4_1 moves their data into the blob store
+ALTER TABLE application ALTER COLUMN package_id DROP NOT NULL;
+
+CREATE TABLE blob_object
+(
+    hash         VARCHAR(64) NOT NULL,
+    content_size BIGINT      NOT NULL,
+    content      OID,
+    PRIMARY KEY (hash)
+);
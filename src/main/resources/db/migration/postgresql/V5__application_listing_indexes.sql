@@ -0,0 +1,2 @@
+CREATE INDEX application_listing_idx ON application (download_counter DESC, id DESC);
+CREATE INDEX application_category_listing_idx ON application (category_id, download_counter DESC, id DESC);
@@ -0,0 +1,230 @@
+package com.alexandervov.service;
+
+import com.alexandervov.config.StoreProperties;
+import com.alexandervov.dao.ApplicationArchive;
+import com.alexandervov.dao.ApplicationRank;
+import com.alexandervov.repository.ApplicationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Downloads registered by many threads while buffer flushes and compactions run concurrently
+ * must be counted in db exactly once, also when buffers and compactors of several nodes share one db.
+ */
+@ActiveProfiles("embedded_database")
+@SpringBootTest(properties = {
+    "store.download-counter.flush-interval=10ms",
+    "store.download-counter.max-lag=100",
+    "store.download-counter.compaction-interval=25ms",
+    "store.download-counter.compaction-batch-size=7",
+    "store.blob-store.directory=target/test-data/blobs",
+    "store.upload.staging-directory=target/test-data/staging"
+})
+class DownloadCountersConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int DOWNLOADS_PER_THREAD = 5_000;
+    private static final int NODES = 2;
+
+    @Autowired
+    private ApplicationService applicationService;
+
+    @Autowired
+    private DownloadCounterBuffer downloadCounterBuffer;
+
+    @Autowired
+    private DownloadEventCompactor downloadEventCompactor;
+
+    @Autowired
+    private PopularApplicationsLeaderboard leaderboard;
+
+    @Autowired
+    private ApplicationRepository applicationRepository;
+
+    @Autowired
+    private DbInitService dbInitService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    @Autowired
+    private StoreProperties storeProperties;
+
+    @Test
+    void countsEveryDownloadOnceAcrossFlushesAndCompactions() throws Exception {
+        dbInitService.getSeeding().get(1, TimeUnit.MINUTES);
+        downloadCounterBuffer.flush();
+        downloadEventCompactor.compact();
+
+        final List<ApplicationArchive> archives = new ArrayList<>();
+        final Map<Integer, Integer> expected = new HashMap<>();
+        for (ApplicationRank rank : applicationRepository.findAllProjectedBy()) {
+            archives.add(applicationRepository.findArchiveByName(rank.getName()).orElseThrow());
+            expected.put(rank.getId(), rank.getDownloadCounter());
+        }
+        assertFalse(archives.isEmpty());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean downloading = new AtomicBoolean(true);
+        final List<Future<?>> downloads = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int offset = thread;
+                downloads.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < DOWNLOADS_PER_THREAD; i++) {
+                        applicationService.registerDownload(archives.get((offset + i) % archives.size()), 0);
+                    }
+                    return null;
+                }));
+            }
+            final Future<?> maintenance = executor.submit(() -> {
+                start.await();
+                while (downloading.get()) {
+                    downloadCounterBuffer.flush();
+                    downloadEventCompactor.compact();
+                }
+                return null;
+            });
+
+            start.countDown();
+            for (Future<?> download : downloads) {
+                download.get(1, TimeUnit.MINUTES);
+            }
+            downloading.set(false);
+            maintenance.get(1, TimeUnit.MINUTES);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < DOWNLOADS_PER_THREAD; i++) {
+                expected.merge(archives.get((thread + i) % archives.size()).getApplicationId(), 1, Integer::sum);
+            }
+        }
+
+        downloadCounterBuffer.flush();
+        downloadEventCompactor.compact();
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM download_event", Integer.class));
+        for (ApplicationRank rank : applicationRepository.findAllProjectedBy()) {
+            assertEquals(expected.get(rank.getId()), rank.getDownloadCounter(), rank.getName());
+            assertEquals(rank.getDownloadCounter(), leaderboard.getDownloadCounter(rank.getId()), rank.getName());
+        }
+    }
+
+    @Test
+    void countsDownloadsOfTwoNodesOnceWhileCompactorsRace() throws Exception {
+        dbInitService.getSeeding().get(1, TimeUnit.MINUTES);
+        downloadCounterBuffer.flush();
+        downloadEventCompactor.compact();
+
+        // every node has own buffer and compactor, they meet only in db and the download_compaction row lock
+        final ApplicationEventPublisher noEvents = event -> {
+        };
+        final List<DownloadCounterBuffer> buffers = new ArrayList<>();
+        final List<DownloadEventCompactor> compactors = new ArrayList<>();
+        for (int node = 0; node < NODES; node++) {
+            buffers.add(new DownloadCounterBuffer(jdbcTemplate, transactionTemplate, taskScheduler, storeProperties,
+                noEvents));
+            compactors.add(new DownloadEventCompactor(jdbcTemplate, transactionTemplate, taskScheduler,
+                storeProperties, noEvents));
+        }
+
+        final List<Integer> ids = new ArrayList<>();
+        final Map<Integer, Integer> expected = new HashMap<>();
+        for (ApplicationRank rank : applicationRepository.findAllProjectedBy()) {
+            ids.add(rank.getId());
+            expected.put(rank.getId(), rank.getDownloadCounter());
+        }
+        assertFalse(ids.isEmpty());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS + 2 * NODES);
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicBoolean downloading = new AtomicBoolean(true);
+        final List<Future<?>> downloads = new ArrayList<>();
+        final List<Future<?>> maintenance = new ArrayList<>();
+        try {
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int offset = thread;
+                final var buffer = buffers.get(thread % NODES);
+                downloads.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < DOWNLOADS_PER_THREAD; i++) {
+                        buffer.increment(ids.get((offset + i) % ids.size()));
+                    }
+                    return null;
+                }));
+            }
+            for (int node = 0; node < NODES; node++) {
+                final var buffer = buffers.get(node);
+                final var compactor = compactors.get(node);
+                maintenance.add(executor.submit(() -> {
+                    start.await();
+                    while (downloading.get()) {
+                        buffer.flush();
+                    }
+                    return null;
+                }));
+                // compactors of both nodes race each other and the compactor of the application context
+                maintenance.add(executor.submit(() -> {
+                    start.await();
+                    while (downloading.get()) {
+                        compactor.compact();
+                    }
+                    return null;
+                }));
+            }
+
+            start.countDown();
+            for (Future<?> download : downloads) {
+                download.get(1, TimeUnit.MINUTES);
+            }
+            downloading.set(false);
+            for (Future<?> task : maintenance) {
+                task.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int thread = 0; thread < THREADS; thread++) {
+            for (int i = 0; i < DOWNLOADS_PER_THREAD; i++) {
+                expected.merge(ids.get((thread + i) % ids.size()), 1, Integer::sum);
+            }
+        }
+
+        buffers.forEach(DownloadCounterBuffer::flush);
+        compactors.get(0).compact();
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM download_event", Integer.class));
+        for (ApplicationRank rank : applicationRepository.findAllProjectedBy()) {
+            assertEquals(expected.get(rank.getId()), rank.getDownloadCounter(), rank.getName());
+        }
+    }
+}